@@ -31,16 +31,20 @@ import com.h6ah4i.android.example.advrecyclerview.R;
 import com.h6ah4i.android.example.advrecyclerview.demo.data.AbstractDataProvider;
 import com.h6ah4i.android.widget.advrecyclerview.draggable.DraggableItemViewHolder;
 import com.h6ah4i.android.widget.advrecyclerview.draggable.DraggableItemAdapter;
+import com.h6ah4i.android.widget.advrecyclerview.draggable.DraggableItemStateChangeListener;
 import com.h6ah4i.android.widget.advrecyclerview.draggable.RecyclerViewDragDropManager;
 import com.h6ah4i.android.widget.advrecyclerview.swipeable.RecyclerViewSwipeManager;
 import com.h6ah4i.android.widget.advrecyclerview.swipeable.SwipeableItemAdapter;
+import com.h6ah4i.android.widget.advrecyclerview.swipeable.SwipeableItemStateChangeListener;
 import com.h6ah4i.android.widget.advrecyclerview.swipeable.SwipeableItemViewHolder;
 import com.h6ah4i.android.widget.advrecyclerview.utils.AbstractDraggableSwipeableItemViewHolder;
 
 public class MyItemAdapter
         extends RecyclerView.Adapter<MyItemAdapter.MyViewHolder>
         implements DraggableItemAdapter<MyItemAdapter.MyViewHolder>,
-        SwipeableItemAdapter<MyItemAdapter.MyViewHolder> {
+        DraggableItemStateChangeListener<MyItemAdapter.MyViewHolder>,
+        SwipeableItemAdapter<MyItemAdapter.MyViewHolder>,
+        SwipeableItemStateChangeListener<MyItemAdapter.MyViewHolder> {
     private static final String TAG = "MyItemAdapter";
 
     private AbstractDataProvider mProvider;
@@ -119,6 +123,24 @@ public class MyItemAdapter
         holder.mTextView.setText(item.getText());
 
         // set background resource (target view ID: container)
+        updateBackground(holder);
+
+        // set swiping properties
+        holder.setSwipeItemSlideAmount(
+                item.isPinnedToSwipeLeft() ? RecyclerViewSwipeManager.OUTSIDE_OF_THE_WINDOW_LEFT : 0);
+    }
+
+    @Override
+    public void onDragStateFlagsChanged(MyViewHolder holder, int flags) {
+        updateBackground(holder);
+    }
+
+    @Override
+    public void onSwipeStateFlagsChanged(MyViewHolder holder, int flags) {
+        updateBackground(holder);
+    }
+
+    private void updateBackground(MyViewHolder holder) {
         final int dragState = holder.getDragStateFlags();
         final int swipeState = holder.getSwipeStateFlags();
 
@@ -140,10 +162,6 @@ public class MyItemAdapter
 
             holder.mContainer.setBackgroundResource(bgResId);
         }
-
-        // set swiping properties
-        holder.setSwipeItemSlideAmount(
-                item.isPinnedToSwipeLeft() ? RecyclerViewSwipeManager.OUTSIDE_OF_THE_WINDOW_LEFT : 0);
     }
 
     @Override
@@ -33,6 +33,7 @@ import com.h6ah4i.android.example.advrecyclerview.demo.MyItemAdapter;
 import com.h6ah4i.android.example.advrecyclerview.demo.data.AbstractDataProvider;
 import com.h6ah4i.android.widget.advrecyclerview.animator.GeneralItemAnimator;
 import com.h6ah4i.android.widget.advrecyclerview.animator.SwipeDismissItemAnimator;
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
 import com.h6ah4i.android.widget.advrecyclerview.decoration.ItemShadowDecorator;
 import com.h6ah4i.android.widget.advrecyclerview.decoration.SimpleListDividerDecorator;
 import com.h6ah4i.android.widget.advrecyclerview.draggable.BasicSwapTargetTranslationInterpolator;
@@ -110,16 +111,18 @@ public class RecyclerListViewFragment extends Fragment {
         mRecyclerView.setAdapter(mWrappedAdapter);  // requires *wrapped* adapter
         mRecyclerView.setItemAnimator(animator);
 
-        // additional decorations
+        // additional decorations (drawn in a single pass)
+        final CompositeItemDecoration decoration = new CompositeItemDecoration();
         if (supportsViewElevation()) {
             // Lollipop or later has native drop shadow feature. ItemShadowDecorator is not required.
         } else {
-            mRecyclerView.addItemDecoration(new ItemShadowDecorator((NinePatchDrawable) getResources().getDrawable(R.drawable.material_shadow_z1)));
+            decoration.addLayer(new ItemShadowDecorator((NinePatchDrawable) getResources().getDrawable(R.drawable.material_shadow_z1)).asLayer());
         }
-        mRecyclerView.addItemDecoration(new SimpleListDividerDecorator(getResources().getDrawable(R.drawable.list_divider), true));
+        decoration.addLayer(new SimpleListDividerDecorator(getResources().getDrawable(R.drawable.list_divider), true).asLayer());
+        mRecyclerView.addItemDecoration(decoration);
 
         // NOTE:
-        // The initialization order is very important! This order determines the priority of touch event handling.
+        // The touch events are dispatched in the fixed priority order regardless of the initialization order.
         //
         // priority: TouchActionGuard > Swipe > DragAndDrop
         mRecyclerViewTouchActionGuardManager.attachRecyclerView(mRecyclerView);
@@ -0,0 +1,195 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+
+import java.util.Random;
+
+/**
+ * Compares the hit-testing of CustomRecyclerViewUtils (binary search for ordered layouts) with
+ * the plain linear scan. Results are written to logcat.
+ */
+public class ChildViewHitTestBenchmark extends ActivityInstrumentationTestCase2<TestActivity> {
+    private static final String TAG = "ChildViewHitTestBenchmark";
+
+    private static final int NUM_QUERIES = 20000;
+
+    RecyclerView mRecyclerView;
+    Adapter mAdapter;
+
+    public ChildViewHitTestBenchmark() {
+        super(TestActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mAdapter = new Adapter();
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView = new RecyclerView(getActivity());
+                mRecyclerView.setItemAnimator(null);
+                mRecyclerView.setAdapter(mAdapter);
+                getActivity().mContainer.addView(mRecyclerView,
+                        new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+        });
+    }
+
+    public void testLinearLayout50() throws Throwable {
+        runBenchmark(new LinearLayoutManager(getActivity()), 50, 1);
+    }
+
+    public void testLinearLayout100() throws Throwable {
+        runBenchmark(new LinearLayoutManager(getActivity()), 100, 1);
+    }
+
+    public void testLinearLayout200() throws Throwable {
+        runBenchmark(new LinearLayoutManager(getActivity()), 200, 1);
+    }
+
+    public void testReversedLinearLayout100() throws Throwable {
+        runBenchmark(new LinearLayoutManager(getActivity(), LinearLayoutManager.VERTICAL, true), 100, 1);
+    }
+
+    public void testGridLayout200() throws Throwable {
+        runBenchmark(new GridLayoutManager(getActivity(), 4), 200, 4);
+    }
+
+    private void runBenchmark(final RecyclerView.LayoutManager layoutManager, final int numVisibleItems, final int spanCount) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.setLayoutManager(layoutManager);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        final int rows = (numVisibleItems + spanCount - 1) / spanCount;
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mAdapter.setItems(numVisibleItems * 2, Math.max(1, mRecyclerView.getHeight() / rows));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                measure(layoutManager.getClass().getSimpleName(), numVisibleItems);
+            }
+        });
+    }
+
+    private void measure(String name, int numVisibleItems) {
+        final RecyclerView rv = mRecyclerView;
+        final int width = rv.getWidth();
+        final int height = rv.getHeight();
+        final float[] xs = new float[NUM_QUERIES];
+        final float[] ys = new float[NUM_QUERIES];
+        final Random random = new Random(0);
+
+        assertTrue("not enough children: " + rv.getChildCount(), rv.getChildCount() >= numVisibleItems);
+
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            xs[i] = random.nextFloat() * width;
+            ys[i] = random.nextFloat() * height;
+        }
+
+        // verify the results first (this also warms up the JIT)
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            assertSame(
+                    findChildViewUnderByLinearScan(rv, xs[i], ys[i]),
+                    CustomRecyclerViewUtils.findChildViewUnderWithoutTranslation(rv, xs[i], ys[i]));
+        }
+
+        int dummy = 0;
+
+        final long linearStartTime = System.nanoTime();
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            dummy += (findChildViewUnderByLinearScan(rv, xs[i], ys[i]) != null) ? 1 : 0;
+        }
+        final long linearTime = System.nanoTime() - linearStartTime;
+
+        final long utilsStartTime = System.nanoTime();
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            dummy += (CustomRecyclerViewUtils.findChildViewUnderWithoutTranslation(rv, xs[i], ys[i]) != null) ? 1 : 0;
+        }
+        final long utilsTime = System.nanoTime() - utilsStartTime;
+
+        Log.i(TAG, name + " children = " + rv.getChildCount()
+                + ", linear scan: " + (linearTime / NUM_QUERIES) + " ns/query"
+                + ", CustomRecyclerViewUtils: " + (utilsTime / NUM_QUERIES) + " ns/query"
+                + " (" + dummy + ")");
+    }
+
+    private static View findChildViewUnderByLinearScan(ViewGroup parent, float x, float y) {
+        for (int i = parent.getChildCount() - 1; i >= 0; i--) {
+            final View child = parent.getChildAt(i);
+            if (x >= child.getLeft() && x <= child.getRight() && y >= child.getTop() && y <= child.getBottom()) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static class Adapter extends RecyclerView.Adapter<ViewHolder> {
+        private int mItemCount;
+        private int mItemHeight;
+
+        public void setItems(int count, int itemHeight) {
+            mItemCount = count;
+            mItemHeight = itemHeight;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new ViewHolder(new View(parent.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+            holder.itemView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, mItemHeight));
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+
+    private static class ViewHolder extends RecyclerView.ViewHolder {
+        public ViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -19,14 +19,18 @@
 
 package com.h6ah4i.android.widget.advrecyclerview;
 
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.test.ActivityInstrumentationTestCase2;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.TextView;
 
 import com.h6ah4i.android.widget.advrecyclerview.animator.BaseItemAnimator;
 import com.h6ah4i.android.widget.advrecyclerview.animator.GeneralItemAnimator;
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.AddAnimationInfo;
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.MoveAnimationInfo;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -46,6 +50,17 @@ public abstract class GeneralItemAnimatorTest extends ActivityInstrumentationTes
     Set<RecyclerView.ViewHolder> mAddFinished = new HashSet<RecyclerView.ViewHolder>();
     Set<RecyclerView.ViewHolder> mMoveFinished = new HashSet<RecyclerView.ViewHolder>();
     Set<RecyclerView.ViewHolder> mChangeFinished = new HashSet<RecyclerView.ViewHolder>();
+    List<RecyclerView.ViewHolder> mAddFinishedOrder = new ArrayList<RecyclerView.ViewHolder>();
+    int mMaxObservedActiveCount;
+
+    // NOTE: observes the active animation count at every frame while the animations are running
+    final ViewTreeObserver.OnPreDrawListener mActiveAnimationCountObserver = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            observeActiveAnimationCount();
+            return true;
+        }
+    };
 
     public GeneralItemAnimatorTest() {
         super(TestActivity.class);
@@ -68,6 +83,7 @@ public abstract class GeneralItemAnimatorTest extends ActivityInstrumentationTes
             @Override
             public void onAddFinished(RecyclerView.ViewHolder item) {
                 assertTrue(mAddFinished.add(item));
+                mAddFinishedOrder.add(item);
                 onFinished();
             }
 
@@ -84,6 +100,8 @@ public abstract class GeneralItemAnimatorTest extends ActivityInstrumentationTes
             }
 
             private void onFinished() {
+                observeActiveAnimationCount();
+
                 if (mExpectedItems != null) {
                     mExpectedItems.countDown();
                 }
@@ -93,6 +111,30 @@ public abstract class GeneralItemAnimatorTest extends ActivityInstrumentationTes
 
     protected abstract GeneralItemAnimator onCreateTestTargetItemAnimator();
 
+    private void observeActiveAnimationCount() {
+        if (mAnimator != null) {
+            mMaxObservedActiveCount = Math.max(mMaxObservedActiveCount, mAnimator.getActiveAnimationCount());
+        }
+    }
+
+    void startObservingActiveAnimationCount() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mDummyParent.getViewTreeObserver().addOnPreDrawListener(mActiveAnimationCountObserver);
+            }
+        });
+    }
+
+    void stopObservingActiveAnimationCount() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mDummyParent.getViewTreeObserver().removeOnPreDrawListener(mActiveAnimationCountObserver);
+            }
+        });
+    }
+
     void expectItems(int count) {
         mExpectedItems = new CountDownLatch(count);
     }
@@ -145,6 +187,144 @@ public abstract class GeneralItemAnimatorTest extends ActivityInstrumentationTes
         runAndWait(1);
     }
 
+    public void testEndAnimationOfPendingChangeItem() throws Throwable {
+        ViewHolder vh = createViewHolder(1);
+        ViewHolder vh2 = createViewHolder(2);
+        expectItems(2);
+        assertTrue(animateChange(vh, vh2, 0, 0, 100, 100));
+        endAnimation(vh);
+        assertTrue(mChangeFinished.contains(vh));
+        assertFalse(mChangeFinished.contains(vh2));
+        assertTrue(mAnimator.isRunning());
+        runAndWait(1);
+        assertTrue(mChangeFinished.contains(vh2));
+    }
+
+    public void testEndAnimationOfPendingItems() throws Throwable {
+        final int count = 50;
+        final List<ViewHolder> holders = new ArrayList<ViewHolder>();
+        expectItems(count);
+        for (int i = 0; i < count; i++) {
+            final ViewHolder vh = createViewHolder(i);
+            holders.add(vh);
+            assertTrue(animateAdd(vh));
+        }
+        for (int i = 0; i < count; i++) {
+            endAnimation(holders.get(i));
+        }
+        assertEquals(count, mAddFinished.size());
+        assertFalse(mAnimator.isRunning());
+        waitForItems(1);
+    }
+
+    public void testMaxConcurrentAnimations() throws Throwable {
+        final int count = 5;
+        final int max = 2;
+        final List<ViewHolder> holders = new ArrayList<ViewHolder>();
+        mAnimator.setMaxConcurrentAnimations(max);
+        expectItems(count);
+        for (int i = 0; i < count; i++) {
+            final ViewHolder vh = createViewHolder(i);
+            holders.add(vh);
+            assertTrue(animateAdd(vh));
+        }
+        startObservingActiveAnimationCount();
+        runAndWait(count);
+        stopObservingActiveAnimationCount();
+        assertEquals(count, mAddFinished.size());
+        assertFalse(mAnimator.isRunning());
+
+        // the limit is never exceeded (checked at every frame and whenever an item finishes)
+        assertTrue("max observed active count = " + mMaxObservedActiveCount, mMaxObservedActiveCount <= max);
+        assertTrue(mMaxObservedActiveCount > 0);
+
+        // the waiting items are started in the order they were added
+        // (all of the add animations have the same duration, so they finish in the order they were started)
+        assertEquals(holders, mAddFinishedOrder);
+    }
+
+    public void testStaggerDelay() throws Throwable {
+        final long delay = 50;
+        final RecyclerView[] rv = new RecyclerView[1];
+
+        mAnimator.setStaggerDelay(delay);
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                rv[0] = new RecyclerView(getActivity());
+                rv[0].setLayoutManager(new LinearLayoutManager(getActivity()));
+                rv[0].setItemAnimator(null); // the animations are run manually
+                rv[0].setAdapter(mAdapter);
+                mDummyParent.addView(rv[0], new ViewGroup.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        final List<RecyclerView.ViewHolder> holders = new ArrayList<RecyclerView.ViewHolder>();
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final int childCount = rv[0].getChildCount();
+
+                assertTrue(childCount > 2);
+
+                for (int i = 0; i < childCount; i++) {
+                    final RecyclerView.ViewHolder vh = rv[0].getChildViewHolder(rv[0].getChildAt(i));
+
+                    // delayed by the distance from the first child
+                    assertEquals(i * delay, mAnimator.getItemAnimationStartDelay(new AddAnimationInfo(vh), vh));
+                    // moving items are not staggered
+                    assertEquals(0, mAnimator.getItemAnimationStartDelay(new MoveAnimationInfo(vh, 0, 0, 0, 0), vh));
+
+                    holders.add(vh);
+                }
+
+                // add in the reverse order, the items still start from the first child
+                for (int i = childCount - 1; i >= 0; i--) {
+                    assertTrue(mAnimator.animateAdd(holders.get(i)));
+                }
+            }
+        });
+
+        expectItems(holders.size());
+        runAndWait(5);
+
+        // the add animations have the same duration, so they finish in the order they were started
+        assertEquals(holders, mAddFinishedOrder);
+        assertFalse(mAnimator.isRunning());
+    }
+
+    public void testBatchDegradation() throws Throwable {
+        final int count = 5;
+        mAnimator.setBatchDegradationThreshold(count - 1);
+        expectItems(count);
+        for (int i = 0; i < count; i++) {
+            assertTrue(animateAdd(createViewHolder(i)));
+        }
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mAnimator.runPendingAnimations();
+                // all items are placed immediately
+                assertEquals(count, mAddFinished.size());
+                assertFalse(mAnimator.isRunning());
+            }
+        });
+        waitForItems(1);
+    }
+
+    void endAnimation(final RecyclerView.ViewHolder vh) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mAnimator.endAnimation(vh);
+            }
+        });
+    }
+
     boolean animateAdd(final RecyclerView.ViewHolder vh) throws Throwable {
         final boolean[] result = new boolean[1];
         runTestOnUiThread(new Runnable() {
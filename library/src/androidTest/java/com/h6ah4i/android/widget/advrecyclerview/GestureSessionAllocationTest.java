@@ -0,0 +1,604 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview;
+
+import android.graphics.drawable.Drawable;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPropertyAnimatorListener;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import com.h6ah4i.android.widget.advrecyclerview.draggable.DraggableItemAdapter;
+import com.h6ah4i.android.widget.advrecyclerview.draggable.RecyclerViewDragDropManager;
+import com.h6ah4i.android.widget.advrecyclerview.swipeable.RecyclerViewSwipeManager;
+import com.h6ah4i.android.widget.advrecyclerview.swipeable.SwipeableItemAdapter;
+import com.h6ah4i.android.widget.advrecyclerview.utils.AbstractDraggableSwipeableItemViewHolder;
+
+/**
+ * Checks that repeated drag and swipe gesture sessions don't allocate objects once warmed up.
+ *
+ * NOTE: Most of the sessions are driven synchronously on the UI thread, so the layout passes and the frames
+ * between the touch events (which belong to RecyclerView itself) are not counted. The auto-scroll sessions are
+ * driven frame by frame instead, so the coalesced touch moves and the scrolling (including the layout passes
+ * caused by the scroll and the item swaps) are counted too. The swipe-dismiss and the slide-back sessions are
+ * counted until their effects and animations are finished.
+ */
+public class GestureSessionAllocationTest extends ActivityInstrumentationTestCase2<TestActivity> {
+    private static final int NUM_WARM_UP_SESSIONS = 5;
+    private static final int NUM_MEASURED_SESSIONS = 20;
+    private static final int NUM_MOVES_PER_SESSION = 10;
+    private static final int NUM_AUTO_SCROLL_FRAMES_PER_SESSION = 10;
+    private static final long FRAME_INTERVAL_MILLIS = 16;
+    private static final long SLIDE_BACK_DURATION_MILLIS = 100;
+    private static final int NUM_SLIDE_BACK_FRAMES = 12; // longer than SLIDE_BACK_DURATION_MILLIS
+    private static final int NUM_REMOVAL_EFFECT_FRAMES = 10; // longer than the removal effect of the swiped item
+
+    RecyclerView mRecyclerView;
+    RecyclerViewDragDropManager mDragDropManager;
+    RecyclerViewSwipeManager mSwipeManager;
+    Adapter mAdapter;
+    int mTouchSlop;
+
+    // NOTE: the events are obtained once and reused by all the sessions
+    MotionEvent mDownEvent;
+    MotionEvent mMoveEvent;
+    MotionEvent mUpEvent;
+
+    // NOTE: the swipe-dismiss sessions need increasing event times to be flung (the velocity is checked)
+    MotionEvent[] mTimedMoveEvents;
+    MotionEvent mTimedUpEvent;
+
+    // NOTE: same as the slide-back animation of the swipe manager, but started directly
+    final Interpolator mReferenceInterpolator = new AccelerateDecelerateInterpolator();
+    final ViewPropertyAnimatorListener mReferenceListener = new ViewPropertyAnimatorListener() {
+        @Override
+        public void onAnimationStart(View view) {
+        }
+
+        @Override
+        public void onAnimationEnd(View view) {
+            ViewCompat.animate(view).setListener(null);
+        }
+
+        @Override
+        public void onAnimationCancel(View view) {
+        }
+    };
+
+    public GestureSessionAllocationTest() {
+        super(TestActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mTouchSlop = ViewConfiguration.get(getActivity()).getScaledTouchSlop();
+
+        final long now = SystemClock.uptimeMillis();
+        mDownEvent = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        mMoveEvent = MotionEvent.obtain(now, now, MotionEvent.ACTION_MOVE, 0, 0, 0);
+        mUpEvent = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, 0, 0, 0);
+
+        mTimedMoveEvents = new MotionEvent[NUM_MOVES_PER_SESSION];
+        for (int i = 0; i < NUM_MOVES_PER_SESSION; i++) {
+            final long eventTime = now + (i + 1) * FRAME_INTERVAL_MILLIS;
+            mTimedMoveEvents[i] = MotionEvent.obtain(now, eventTime, MotionEvent.ACTION_MOVE, 0, 0, 0);
+        }
+        final long upTime = now + (NUM_MOVES_PER_SESSION + 1) * FRAME_INTERVAL_MILLIS;
+        mTimedUpEvent = MotionEvent.obtain(now, upTime, MotionEvent.ACTION_UP, 0, 0, 0);
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mDragDropManager = new RecyclerViewDragDropManager();
+                mSwipeManager = new RecyclerViewSwipeManager();
+
+                // NOTE: animations started by the framework (ViewPropertyAnimator, etc.) allocate objects
+                mSwipeManager.setReturnToDefaultPositionAnimationDuration(0);
+                mSwipeManager.setTouchMoveCoalescingEnabled(false);
+                mDragDropManager.setTouchMoveCoalescingEnabled(false);
+
+                mAdapter = new Adapter();
+
+                RecyclerView.Adapter adapter = mAdapter;
+                adapter = mDragDropManager.createWrappedAdapter(adapter);
+                adapter = mSwipeManager.createWrappedAdapter(adapter);
+
+                mRecyclerView = new RecyclerView(getActivity());
+                mRecyclerView.setLayoutManager(new LinearLayoutManager(getActivity()));
+                mRecyclerView.setItemAnimator(null);
+                mRecyclerView.setAdapter(adapter);
+
+                mSwipeManager.attachRecyclerView(mRecyclerView);
+                mDragDropManager.attachRecyclerView(mRecyclerView);
+
+                getActivity().mContainer.addView(mRecyclerView,
+                        new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mDragDropManager.release();
+                mSwipeManager.release();
+            }
+        });
+
+        mDownEvent.recycle();
+        mMoveEvent.recycle();
+        mUpEvent.recycle();
+        for (MotionEvent e : mTimedMoveEvents) {
+            e.recycle();
+        }
+        mTimedUpEvent.recycle();
+
+        super.tearDown();
+    }
+
+    public void testDragSessionsDoNotAllocate() throws Throwable {
+        // the item is moved less than the half of its height, so no items are swapped
+        runSessions(0, 3 * mTouchSlop);
+    }
+
+    public void testSwipeSessionsDoNotAllocate() throws Throwable {
+        // the item is moved less than the half of its width, so the swipe is canceled
+        runSessions(3 * mTouchSlop, 0);
+    }
+
+    public void testAutoScrollDragSessionsDoNotAllocate() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                // the touch moves are processed by the frame callback
+                mDragDropManager.setTouchMoveCoalescingEnabled(true);
+            }
+        });
+
+        final int[] allocCount = new int[1];
+
+        for (int i = 0; i < NUM_WARM_UP_SESSIONS; i++) {
+            runAutoScrollSession(null);
+        }
+
+        for (int i = 0; i < NUM_MEASURED_SESSIONS; i++) {
+            runAutoScrollSession(allocCount);
+        }
+
+        assertEquals("allocations in " + NUM_MEASURED_SESSIONS + " sessions", 0, allocCount[0]);
+    }
+
+    public void testSwipeDismissSessionsDoNotAllocate() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                // the swiped item is removed with the removal effect (RemovingItemDecorator)
+                mAdapter.mAfterSwipeReaction = RecyclerViewSwipeManager.AFTER_SWIPE_REACTION_REMOVE_ITEM;
+            }
+        });
+
+        final int[] allocCount = new int[1];
+
+        for (int i = 0; i < NUM_WARM_UP_SESSIONS; i++) {
+            runSwipeDismissSession(null);
+        }
+
+        for (int i = 0; i < NUM_MEASURED_SESSIONS; i++) {
+            runSwipeDismissSession(allocCount);
+        }
+
+        assertEquals("allocations in " + NUM_MEASURED_SESSIONS + " sessions", 0, allocCount[0]);
+    }
+
+    public void testAnimatedSlideBackSessionsDoNotAllocateMoreThanAnimator() throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mSwipeManager.setReturnToDefaultPositionAnimationDuration(SLIDE_BACK_DURATION_MILLIS);
+            }
+        });
+
+        // NOTE:
+        // ViewPropertyAnimator (and its compat wrapper) allocates objects on every animation, so the sessions
+        // are compared with the same animations started directly. The sliding listeners have to be recycled.
+        final int[] referenceAllocCount = new int[1];
+        final int[] allocCount = new int[1];
+
+        for (int i = 0; i < NUM_WARM_UP_SESSIONS; i++) {
+            runReferenceSlideBackAnimation(null);
+            runSlideBackSession(null);
+        }
+
+        for (int i = 0; i < NUM_MEASURED_SESSIONS; i++) {
+            runReferenceSlideBackAnimation(referenceAllocCount);
+            runSlideBackSession(allocCount);
+        }
+
+        assertTrue("allocations in " + NUM_MEASURED_SESSIONS + " sessions: " + allocCount[0] +
+                        " (animations only: " + referenceAllocCount[0] + ")",
+                allocCount[0] <= referenceAllocCount[0]);
+    }
+
+    private void runSessions(final int dx, final int dy) throws Throwable {
+        final int[] allocCount = new int[1];
+
+        for (int i = 0; i < NUM_WARM_UP_SESSIONS; i++) {
+            runSessionOnUiThread(dx, dy, null);
+        }
+
+        for (int i = 0; i < NUM_MEASURED_SESSIONS; i++) {
+            runSessionOnUiThread(dx, dy, allocCount);
+        }
+
+        assertEquals("allocations in " + NUM_MEASURED_SESSIONS + " sessions", 0, allocCount[0]);
+    }
+
+    private void runSessionOnUiThread(final int dx, final int dy, final int[] allocCount) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mRecyclerView.getChildAt(0);
+                final float x = child.getLeft() + child.getWidth() * 0.25f;
+                final float y = child.getTop() + child.getHeight() * 0.25f;
+
+                if (allocCount != null) {
+                    Debug.startAllocCounting();
+                    Debug.resetThreadAllocCount();
+                }
+
+                dispatch(mDownEvent, x, y);
+                for (int i = 1; i <= NUM_MOVES_PER_SESSION; i++) {
+                    final float t = (float) i / NUM_MOVES_PER_SESSION;
+                    dispatch(mMoveEvent, x + dx * t, y + dy * t);
+                }
+                dispatch(mUpEvent, x + dx, y + dy);
+
+                if (allocCount != null) {
+                    allocCount[0] += Debug.getThreadAllocCount();
+                    Debug.stopAllocCounting();
+                }
+            }
+        });
+
+        // let the deferred processes and the layout pass run between the sessions
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void runSwipeDismissSession(final int[] allocCount) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mRecyclerView.getChildAt(0);
+                final float x = child.getLeft() + child.getWidth() * 0.25f;
+                final float y = child.getTop() + child.getHeight() * 0.25f;
+                final float dx = child.getWidth() * 0.7f; // more than the half of its width
+
+                startAllocCounting(allocCount);
+
+                dispatch(mDownEvent, x, y);
+                for (int i = 1; i <= NUM_MOVES_PER_SESSION; i++) {
+                    final float t = (float) i / NUM_MOVES_PER_SESSION;
+                    dispatch(mTimedMoveEvents[i - 1], x + dx * t, y);
+                }
+                dispatch(mTimedUpEvent, x + dx, y);
+            }
+        });
+
+        // let the removal effect run to the end
+        waitForFrames(NUM_REMOVAL_EFFECT_FRAMES);
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                stopAllocCounting(allocCount);
+            }
+        });
+
+        // put back the removed item for the next session (not counted)
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mAdapter.restoreRemovedItem();
+                mRecyclerView.scrollToPosition(0);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void runSlideBackSession(final int[] allocCount) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mRecyclerView.getChildAt(0);
+                final float x = child.getLeft() + child.getWidth() * 0.25f;
+                final float y = child.getTop() + child.getHeight() * 0.25f;
+                final float dx = 3 * mTouchSlop; // less than the half of its width, the swipe is canceled
+
+                startAllocCounting(allocCount);
+
+                dispatch(mDownEvent, x, y);
+                for (int i = 1; i <= NUM_MOVES_PER_SESSION; i++) {
+                    final float t = (float) i / NUM_MOVES_PER_SESSION;
+                    dispatch(mMoveEvent, x + dx * t, y);
+                }
+                dispatch(mUpEvent, x + dx, y);
+            }
+        });
+
+        // let the slide-back animation run to the end
+        waitForFrames(NUM_SLIDE_BACK_FRAMES);
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                stopAllocCounting(allocCount);
+            }
+        });
+    }
+
+    private void runReferenceSlideBackAnimation(final int[] allocCount) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View view = mRecyclerView.getChildAt(0);
+
+                ViewCompat.setTranslationX(view, 3 * mTouchSlop);
+
+                startAllocCounting(allocCount);
+
+                ViewCompat.animate(view)
+                        .setDuration(SLIDE_BACK_DURATION_MILLIS)
+                        .setInterpolator(mReferenceInterpolator)
+                        .translationX(0)
+                        .setListener(mReferenceListener)
+                        .start();
+            }
+        });
+
+        waitForFrames(NUM_SLIDE_BACK_FRAMES);
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                stopAllocCounting(allocCount);
+            }
+        });
+    }
+
+    private void runAutoScrollSession(final int[] allocCount) throws Throwable {
+        final float[] touchPosition = new float[3]; // x, y, y of the bottom edge zone
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final View child = mRecyclerView.getChildAt(0);
+                touchPosition[0] = child.getLeft() + child.getWidth() * 0.25f;
+                touchPosition[1] = child.getTop() + child.getHeight() * 0.25f;
+                touchPosition[2] = mRecyclerView.getHeight() * 0.95f;
+
+                if (allocCount != null) {
+                    Debug.startAllocCounting();
+                    Debug.resetThreadAllocCount();
+                }
+
+                dispatch(mDownEvent, touchPosition[0], touchPosition[1]);
+            }
+        });
+
+        // move the item into the bottom edge zone (it starts auto-scrolling) and keep it there for a while
+        final float startY = touchPosition[1];
+        final float endY = touchPosition[2];
+
+        for (int i = 1; i <= NUM_MOVES_PER_SESSION + NUM_AUTO_SCROLL_FRAMES_PER_SESSION; i++) {
+            final float t = Math.min(1.0f, (float) i / NUM_MOVES_PER_SESSION);
+            final float y = startY + (endY - startY) * t;
+
+            runTestOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    dispatch(mMoveEvent, touchPosition[0], y);
+                }
+            });
+            waitForNextFrame();
+        }
+
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(mUpEvent, touchPosition[0], endY);
+
+                if (allocCount != null) {
+                    allocCount[0] += Debug.getThreadAllocCount();
+                    Debug.stopAllocCounting();
+                }
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        // rewind the scroll position for the next session (not counted)
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mRecyclerView.scrollToPosition(0);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void waitForNextFrame() throws InterruptedException {
+        Thread.sleep(FRAME_INTERVAL_MILLIS);
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void waitForFrames(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            waitForNextFrame();
+        }
+    }
+
+    private static void startAllocCounting(int[] allocCount) {
+        if (allocCount != null) {
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+        }
+    }
+
+    private static void stopAllocCounting(int[] allocCount) {
+        if (allocCount != null) {
+            allocCount[0] += Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+        }
+    }
+
+    private void dispatch(MotionEvent e, float x, float y) {
+        e.setLocation(x, y);
+        mRecyclerView.dispatchTouchEvent(e);
+    }
+
+    private static class Adapter
+            extends RecyclerView.Adapter<ViewHolder>
+            implements DraggableItemAdapter<ViewHolder>, SwipeableItemAdapter<ViewHolder> {
+
+        private static final int ITEM_COUNT = 20;
+        private static final int ITEM_HEIGHT_DP = 100;
+
+        // NOTE: the items are actually moved by the auto-scroll sessions (without allocating objects)
+        private final long[] mItemIds = new long[ITEM_COUNT];
+        private int mItemCount = ITEM_COUNT;
+        private long mRemovedItemId = RecyclerView.NO_ID;
+
+        int mAfterSwipeReaction = RecyclerViewSwipeManager.AFTER_SWIPE_REACTION_DEFAULT;
+
+        public Adapter() {
+            setHasStableIds(true);
+
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                mItemIds[i] = i;
+            }
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mItemIds[position];
+        }
+
+        @Override
+        public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final int height = (int) (ITEM_HEIGHT_DP * parent.getResources().getDisplayMetrics().density + 0.5f);
+            final View v = new View(parent.getContext());
+            v.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, height));
+            return new ViewHolder(v);
+        }
+
+        @Override
+        public void onBindViewHolder(ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+
+        @Override
+        public boolean onCheckCanStartDrag(ViewHolder holder, int x, int y) {
+            return true;
+        }
+
+        @Override
+        public void onMoveItem(int fromPosition, int toPosition) {
+            if (fromPosition == toPosition) {
+                return;
+            }
+
+            final long id = mItemIds[fromPosition];
+
+            if (fromPosition < toPosition) {
+                System.arraycopy(mItemIds, fromPosition + 1, mItemIds, fromPosition, toPosition - fromPosition);
+            } else {
+                System.arraycopy(mItemIds, toPosition, mItemIds, toPosition + 1, fromPosition - toPosition);
+            }
+
+            mItemIds[toPosition] = id;
+        }
+
+        @Override
+        public int onGetSwipeReactionType(ViewHolder holder, int x, int y) {
+            return RecyclerViewSwipeManager.REACTION_CAN_SWIPE_LEFT | RecyclerViewSwipeManager.REACTION_CAN_SWIPE_RIGHT;
+        }
+
+        @Override
+        public Drawable onGetSwipeBackgroundDrawable(ViewHolder holder, int type) {
+            return null;
+        }
+
+        @Override
+        public int onSwipeItem(ViewHolder holder, int result) {
+            return mAfterSwipeReaction;
+        }
+
+        @Override
+        public void onPerformAfterSwipeReaction(ViewHolder holder, int result, int reaction) {
+            if (reaction == RecyclerViewSwipeManager.AFTER_SWIPE_REACTION_REMOVE_ITEM) {
+                final int position = holder.getPosition();
+
+                mRemovedItemId = mItemIds[position];
+                System.arraycopy(mItemIds, position + 1, mItemIds, position, mItemCount - position - 1);
+                mItemCount -= 1;
+
+                notifyItemRemoved(position);
+            }
+        }
+
+        public void restoreRemovedItem() {
+            if (mRemovedItemId == RecyclerView.NO_ID) {
+                return;
+            }
+
+            System.arraycopy(mItemIds, 0, mItemIds, 1, mItemCount);
+            mItemIds[0] = mRemovedItemId;
+            mItemCount += 1;
+            mRemovedItemId = RecyclerView.NO_ID;
+
+            notifyItemInserted(0);
+        }
+    }
+
+    private static class ViewHolder extends AbstractDraggableSwipeableItemViewHolder {
+        public ViewHolder(View itemView) {
+            super(itemView);
+        }
+
+        @Override
+        public View getSwipeableContainerView() {
+            return itemView;
+        }
+    }
+}
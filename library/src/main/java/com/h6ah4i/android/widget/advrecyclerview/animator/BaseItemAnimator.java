@@ -18,6 +18,8 @@ package com.h6ah4i.android.widget.advrecyclerview.animator;
 
 import android.support.v7.widget.RecyclerView;
 
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemAnimationInfo;
+
 public abstract class BaseItemAnimator extends RecyclerView.ItemAnimator {
     private ItemAnimatorListener mListener;
 
@@ -140,4 +142,30 @@ public abstract class BaseItemAnimator extends RecyclerView.ItemAnimator {
     public boolean debugLogEnabled() {
         return false;
     }
+
+    /**
+     * Internal only:
+     * Returns whether a new item animation can be started now. If false, the animation waits until
+     * {@link #onItemAnimationEnded()} is called.
+     */
+    public boolean canStartItemAnimation() {
+        return true;
+    }
+
+    /**
+     * Internal only:
+     * Called when an item animation has been ended (or cancelled).
+     */
+    public void onItemAnimationEnded() {
+    }
+
+    /**
+     * Internal only:
+     * Returns the start delay of the item animation.
+     *
+     * @return Start delay in milliseconds
+     */
+    public long getItemAnimationStartDelay(ItemAnimationInfo info, RecyclerView.ViewHolder item) {
+        return 0;
+    }
 }
@@ -16,19 +16,57 @@
 
 package com.h6ah4i.android.widget.advrecyclerview.animator;
 
+import android.os.SystemClock;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
+import android.view.ViewParent;
 
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.AddAnimationInfo;
 import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemAddAnimationManager;
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemAnimationInfo;
 import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemChangeAnimationManager;
 import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemMoveAnimationManager;
 import com.h6ah4i.android.widget.advrecyclerview.animator.impl.ItemRemoveAnimationManager;
+import com.h6ah4i.android.widget.advrecyclerview.animator.impl.RemoveAnimationInfo;
+import com.h6ah4i.android.widget.advrecyclerview.utils.FrameCallbackCompat;
 
 public abstract class GeneralItemAnimator extends BaseItemAnimator {
     private static final String TAG = "GeneralItemAnimator";
 
+    /**
+     * Batch degradation mode: The items of a large batch are placed to the final positions immediately.
+     */
+    public static final int BATCH_DEGRADATION_INSTANT = 0;
+
+    /**
+     * Batch degradation mode: The items of a large batch are placed to the final positions immediately,
+     * and the whole RecyclerView fades back in to its original alpha instead. (only a single frame callback is used)
+     *
+     * NOTE: The animations of the RecyclerView itself are never cancelled. If its alpha is changed by others
+     * (e.g. an animation of the app) while fading, the crossfade is abandoned and the alpha is left to them.
+     */
+    public static final int BATCH_DEGRADATION_CROSSFADE = 1;
+
+    private static final int MAX_STAGGER_STEPS = 20;
+    private static final float CROSSFADE_START_ALPHA = 0.5f;
+
     private boolean mDebug;
+    private int mMaxConcurrentAnimations; // 0: unlimited
+    private long mStaggerDelay;
+    private int mBatchDegradationThreshold; // 0: disabled
+    private int mBatchDegradationMode = BATCH_DEGRADATION_INSTANT;
+    private boolean mEndingAnimations;
+    private RecyclerView mCrossfadeView; // non-null while the crossfade is running
+    private float mCrossfadeTargetAlpha; // the alpha of the RecyclerView before the crossfade was started
+    private float mCrossfadeLastAlpha; // the alpha set by the crossfade at the last frame
+    private long mCrossfadeStartTime;
+    private final FrameCallbackCompat mCrossfadeFrameCallback = new FrameCallbackCompat(new FrameCallbackCompat.Callback() {
+        @Override
+        public void doFrame(long frameTimeMillis) {
+            onCrossfadeFrame(frameTimeMillis);
+        }
+    });
 
     private ItemRemoveAnimationManager mRemoveAnimationManager;
     private ItemAddAnimationManager mAddAnimationsManager;
@@ -58,6 +96,11 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
             return;
         }
 
+        if (shouldDegradePendingAnimations()) {
+            degradePendingAnimations();
+            return;
+        }
+
         onSchedulePendingAnimations();
     }
 
@@ -110,6 +153,9 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
 
     @Override
     public void endAnimation(RecyclerView.ViewHolder item) {
+        // NOTE: don't start the waiting animations while ending, the item may be one of them
+        final boolean ending = mEndingAnimations;
+        mEndingAnimations = true;
 
         // this will trigger end callback which should set properties to their target values.
         cancelAnimations(item);
@@ -141,6 +187,12 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
             throw new IllegalStateException("after animation is cancelled, item should not be in the active animation list [move]");
         }
 
+        mEndingAnimations = ending;
+
+        if (!mEndingAnimations) {
+            startWaitingAnimations();
+        }
+
         dispatchFinishedWhenDone();
     }
 
@@ -149,7 +201,8 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
         return (mRemoveAnimationManager.isRunning() ||
                 mAddAnimationsManager.isRunning() ||
                 mChangeAnimationsManager.isRunning() ||
-                mMoveAnimationsManager.isRunning());
+                mMoveAnimationsManager.isRunning() ||
+                (mCrossfadeView != null));
     }
 
     @Override
@@ -164,7 +217,11 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
             return;
         }
 
-        // end all deferred animations
+        final boolean ending = mEndingAnimations;
+        mEndingAnimations = true;
+
+        // end all deferred (and waiting) animations
+        mRemoveAnimationManager.endAllDeferredReadyAnimations();
         mMoveAnimationsManager.endAllDeferredReadyAnimations();
         mAddAnimationsManager.endAllDeferredReadyAnimations();
         mChangeAnimationsManager.endAllDeferredReadyAnimations();
@@ -175,9 +232,263 @@ public abstract class GeneralItemAnimator extends BaseItemAnimator {
         mAddAnimationsManager.cancelAllStartedAnimations();
         mChangeAnimationsManager.cancelAllStartedAnimations();
 
+        endCrossfade();
+
+        mEndingAnimations = ending;
+
         dispatchAnimationsFinished();
     }
 
+    @Override
+    public boolean canStartItemAnimation() {
+        return (mMaxConcurrentAnimations <= 0) || (getActiveAnimationCount() < mMaxConcurrentAnimations);
+    }
+
+    @Override
+    public void onItemAnimationEnded() {
+        if (!mEndingAnimations) {
+            startWaitingAnimations();
+        }
+    }
+
+    @Override
+    public long getItemAnimationStartDelay(ItemAnimationInfo info, RecyclerView.ViewHolder item) {
+        // NOTE: only the appearing/disappearing items are staggered, the moving items would overlap each other
+        if (mStaggerDelay <= 0 || !(info instanceof AddAnimationInfo || info instanceof RemoveAnimationInfo)) {
+            return 0;
+        }
+
+        final ViewParent parent = item.itemView.getParent();
+
+        if (!(parent instanceof RecyclerView)) {
+            return 0;
+        }
+
+        final RecyclerView rv = (RecyclerView) parent;
+
+        if (rv.getChildCount() == 0) {
+            return 0;
+        }
+
+        // delay by the distance from the first child in the adapter position
+        final RecyclerView.ViewHolder first = rv.getChildViewHolder(rv.getChildAt(0));
+        final int steps = Math.abs(item.getPosition() - first.getPosition());
+
+        return Math.min(steps, MAX_STAGGER_STEPS) * mStaggerDelay;
+    }
+
+    /**
+     * Sets the maximum number of the item animations running at the same time. The rest of the animations
+     * wait until the running ones end.
+     *
+     * NOTE: A change animation starts the animations of both the old and the new item, so the limit may be
+     * exceeded by one.
+     *
+     * @param max Maximum number of the concurrent animations. Specify 0 for unlimited. (default: 0)
+     */
+    public void setMaxConcurrentAnimations(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max must be >= 0");
+        }
+        mMaxConcurrentAnimations = max;
+    }
+
+    public int getMaxConcurrentAnimations() {
+        return mMaxConcurrentAnimations;
+    }
+
+    /**
+     * Sets the delay between the add/remove animations of the adjacent items. The delay of each item
+     * is determined by its adapter position. (up to {@value #MAX_STAGGER_STEPS} steps)
+     *
+     * @param delay Delay per item in milliseconds. Specify 0 to disable staggering. (default: 0)
+     */
+    public void setStaggerDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must be >= 0");
+        }
+        mStaggerDelay = delay;
+    }
+
+    public long getStaggerDelay() {
+        return mStaggerDelay;
+    }
+
+    /**
+     * Sets the batch size above which the pending animations are not run item by item.
+     *
+     * @param threshold Number of the animated items. Specify 0 to disable the degradation. (default: 0)
+     * @see #setBatchDegradationMode(int)
+     */
+    public void setBatchDegradationThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must be >= 0");
+        }
+        mBatchDegradationThreshold = threshold;
+    }
+
+    public int getBatchDegradationThreshold() {
+        return mBatchDegradationThreshold;
+    }
+
+    /**
+     * Sets how a batch which exceeds the threshold is presented.
+     *
+     * @param mode {@link #BATCH_DEGRADATION_INSTANT} or {@link #BATCH_DEGRADATION_CROSSFADE}
+     * @see #setBatchDegradationThreshold(int)
+     */
+    public void setBatchDegradationMode(int mode) {
+        if (mode != BATCH_DEGRADATION_INSTANT && mode != BATCH_DEGRADATION_CROSSFADE) {
+            throw new IllegalArgumentException("Unknown batch degradation mode: " + mode);
+        }
+        mBatchDegradationMode = mode;
+    }
+
+    public int getBatchDegradationMode() {
+        return mBatchDegradationMode;
+    }
+
+    /**
+     * Gets the number of the item animations which have been started and not ended yet.
+     * (The waiting animations are not included)
+     */
+    public int getActiveAnimationCount() {
+        return mRemoveAnimationManager.getActiveCount() +
+                mMoveAnimationsManager.getActiveCount() +
+                mChangeAnimationsManager.getActiveCount() +
+                mAddAnimationsManager.getActiveCount();
+    }
+
+    protected int getPendingAnimationCount() {
+        return mRemoveAnimationManager.getPendingCount() +
+                mMoveAnimationsManager.getPendingCount() +
+                mChangeAnimationsManager.getPendingCount() +
+                mAddAnimationsManager.getPendingCount();
+    }
+
+    protected boolean shouldDegradePendingAnimations() {
+        return (mBatchDegradationThreshold > 0) && (getPendingAnimationCount() > mBatchDegradationThreshold);
+    }
+
+    /**
+     * Places the items of the pending animations to their final positions without animating them one by one.
+     */
+    protected void degradePendingAnimations() {
+        if (mDebug) {
+            Log.d(TAG, "degradePendingAnimations(count = " + getPendingAnimationCount() + ")");
+        }
+
+        final RecyclerView rv = (mBatchDegradationMode == BATCH_DEGRADATION_CROSSFADE) ? findRecyclerView() : null;
+
+        mMoveAnimationsManager.endAllPendingAnimations();
+        mRemoveAnimationManager.endAllPendingAnimations();
+        mAddAnimationsManager.endAllPendingAnimations();
+        mChangeAnimationsManager.endAllPendingAnimations();
+
+        if (rv != null) {
+            startCrossfade(rv);
+        }
+
+        dispatchFinishedWhenDone();
+    }
+
+    private void startCrossfade(RecyclerView rv) {
+        // NOTE: restores the original alpha if the previous crossfade is still running
+        endCrossfade();
+
+        final float alpha = ViewCompat.getAlpha(rv);
+
+        mCrossfadeView = rv;
+        mCrossfadeTargetAlpha = alpha;
+        mCrossfadeStartTime = SystemClock.uptimeMillis();
+
+        setCrossfadeAlpha(rv, alpha * CROSSFADE_START_ALPHA);
+
+        // NOTE:
+        // The alpha is updated by a frame callback instead of ViewCompat.animate(rv), the view property animator
+        // of the RecyclerView belongs to the app (cancelling or replacing it would break the app's animations)
+        mCrossfadeFrameCallback.post(rv);
+    }
+
+    private void onCrossfadeFrame(long frameTimeMillis) {
+        final RecyclerView rv = mCrossfadeView;
+
+        if (rv == null) {
+            return;
+        }
+
+        if (ViewCompat.getAlpha(rv) != mCrossfadeLastAlpha) {
+            // the alpha has been changed by others, leave it to them
+            mCrossfadeView = null;
+            dispatchFinishedWhenDone();
+            return;
+        }
+
+        final long duration = getAddDuration();
+        final long elapsed = Math.max(0, frameTimeMillis - mCrossfadeStartTime);
+
+        if (elapsed >= duration) {
+            endCrossfade();
+            dispatchFinishedWhenDone();
+            return;
+        }
+
+        final float fraction = (float) elapsed / duration;
+
+        setCrossfadeAlpha(rv, mCrossfadeTargetAlpha * (CROSSFADE_START_ALPHA + (1.0f - CROSSFADE_START_ALPHA) * fraction));
+
+        mCrossfadeFrameCallback.post(rv);
+    }
+
+    private void endCrossfade() {
+        final RecyclerView rv = mCrossfadeView;
+
+        if (rv == null) {
+            return;
+        }
+
+        mCrossfadeView = null;
+        mCrossfadeFrameCallback.cancel(rv);
+
+        // NOTE: the alpha is not restored if it has been changed by others
+        if (ViewCompat.getAlpha(rv) == mCrossfadeLastAlpha) {
+            ViewCompat.setAlpha(rv, mCrossfadeTargetAlpha);
+        }
+    }
+
+    private void setCrossfadeAlpha(RecyclerView rv, float alpha) {
+        ViewCompat.setAlpha(rv, alpha);
+
+        // NOTE: read it back, the alpha is not supported on the platforms prior to Honeycomb
+        mCrossfadeLastAlpha = ViewCompat.getAlpha(rv);
+    }
+
+    private RecyclerView findRecyclerView() {
+        // NOTE: ItemAnimator doesn't know the RecyclerView, get it from the parent of the pending items
+        RecyclerView.ViewHolder holder = mAddAnimationsManager.findPendingViewHolder();
+        if (holder == null) {
+            holder = mRemoveAnimationManager.findPendingViewHolder();
+        }
+        if (holder == null) {
+            holder = mMoveAnimationsManager.findPendingViewHolder();
+        }
+        if (holder == null) {
+            holder = mChangeAnimationsManager.findPendingViewHolder();
+        }
+
+        final ViewParent parent = (holder != null) ? holder.itemView.getParent() : null;
+
+        return (parent instanceof RecyclerView) ? (RecyclerView) parent : null;
+    }
+
+    private void startWaitingAnimations() {
+        // same order as schedulePendingAnimationsByDefaultRule()
+        mRemoveAnimationManager.startWaitingAnimations();
+        mMoveAnimationsManager.startWaitingAnimations();
+        mChangeAnimationsManager.startWaitingAnimations();
+        mAddAnimationsManager.startWaitingAnimations();
+    }
+
     @Override
     public boolean debugLogEnabled() {
         return mDebug;
@@ -84,7 +84,9 @@ public class RefactoredDefaultItemAnimator extends GeneralItemAnimator {
 
             ViewCompat.setAlpha(item.itemView, 0);
 
-            enqueuePendingAnimationInfo(new AddAnimationInfo(item));
+            final AddAnimationInfo info = obtainAnimationInfo();
+            info.set(item);
+            enqueuePendingAnimationInfo(info);
 
             return true;
         }
@@ -129,7 +131,9 @@ public class RefactoredDefaultItemAnimator extends GeneralItemAnimator {
         public boolean addPendingAnimation(RecyclerView.ViewHolder holder) {
             endAnimation(holder);
 
-            enqueuePendingAnimationInfo(new RemoveAnimationInfo(holder));
+            final RemoveAnimationInfo info = obtainAnimationInfo();
+            info.set(holder);
+            enqueuePendingAnimationInfo(info);
             return true;
         }
     }
@@ -211,7 +215,9 @@ public class RefactoredDefaultItemAnimator extends GeneralItemAnimator {
                 ViewCompat.setAlpha(newHolder.itemView, 0);
             }
 
-            enqueuePendingAnimationInfo(new ChangeAnimationInfo(oldHolder, newHolder, fromX, fromY, toX, toY));
+            final ChangeAnimationInfo info = obtainAnimationInfo();
+            info.set(oldHolder, newHolder, fromX, fromY, toX, toY);
+            enqueuePendingAnimationInfo(info);
 
             return true;
         }
@@ -290,11 +296,13 @@ public class RefactoredDefaultItemAnimator extends GeneralItemAnimator {
             final int deltaX = toX - fromX;
             final int deltaY = toY - fromY;
 
-            final MoveAnimationInfo info = new MoveAnimationInfo(item, fromX, fromY, toX, toY);
+            final MoveAnimationInfo info = obtainAnimationInfo();
+            info.set(item, fromX, fromY, toX, toY);
 
             if (deltaX == 0 && deltaY == 0) {
                 dispatchFinished(info, info.holder);
                 info.clear(info.holder);
+                recycleAnimationInfo(info);
                 return false;
             }
 
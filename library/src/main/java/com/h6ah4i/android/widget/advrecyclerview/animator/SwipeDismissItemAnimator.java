@@ -103,7 +103,9 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
 
             ViewCompat.setAlpha(item.itemView, 0);
 
-            enqueuePendingAnimationInfo(new AddAnimationInfo(item));
+            final AddAnimationInfo info = obtainAnimationInfo();
+            info.set(item);
+            enqueuePendingAnimationInfo(info);
 
             return true;
         }
@@ -153,7 +155,19 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
         }
 
         private static boolean isSwipeDismissed(RemoveAnimationInfo info) {
-            return (info instanceof SwipeDismissRemoveAnimationInfo);
+            return ((SwipeDismissRemoveAnimationInfo) info).swipeDismissed;
+        }
+
+        @Override
+        protected RemoveAnimationInfo createAnimationInfo() {
+            return new SwipeDismissRemoveAnimationInfo();
+        }
+
+        private RemoveAnimationInfo obtainAnimationInfo(RecyclerView.ViewHolder holder, boolean swipeDismissed) {
+            final SwipeDismissRemoveAnimationInfo info = (SwipeDismissRemoveAnimationInfo) obtainAnimationInfo();
+            info.set(holder);
+            info.swipeDismissed = swipeDismissed;
+            return info;
         }
 
         @Override
@@ -196,13 +210,13 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
                 ViewCompat.setTranslationX(itemView, prevItemX);
                 ViewCompat.setTranslationY(itemView, prevItemY);
 
-                enqueuePendingAnimationInfo(new SwipeDismissRemoveAnimationInfo(holder));
+                enqueuePendingAnimationInfo(obtainAnimationInfo(holder, true));
 
                 return true;
             } else {
                 endAnimation(holder);
 
-                enqueuePendingAnimationInfo(new RemoveAnimationInfo(holder));
+                enqueuePendingAnimationInfo(obtainAnimationInfo(holder, false));
 
                 return true;
             }
@@ -210,9 +224,7 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
     }
 
     private static class SwipeDismissRemoveAnimationInfo extends RemoveAnimationInfo {
-        public SwipeDismissRemoveAnimationInfo(RecyclerView.ViewHolder holder) {
-            super(holder);
-        }
+        public boolean swipeDismissed;
     }
 
     /**
@@ -292,7 +304,9 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
                 ViewCompat.setAlpha(newHolder.itemView, 0);
             }
 
-            enqueuePendingAnimationInfo(new ChangeAnimationInfo(oldHolder, newHolder, fromX, fromY, toX, toY));
+            final ChangeAnimationInfo info = obtainAnimationInfo();
+            info.set(oldHolder, newHolder, fromX, fromY, toX, toY);
+            enqueuePendingAnimationInfo(info);
 
             return true;
         }
@@ -372,11 +386,13 @@ public class SwipeDismissItemAnimator extends GeneralItemAnimator {
             final int deltaX = toX - fromX;
             final int deltaY = toY - fromY;
 
-            final MoveAnimationInfo info = new MoveAnimationInfo(item, fromX, fromY, toX, toY);
+            final MoveAnimationInfo info = obtainAnimationInfo();
+            info.set(item, fromX, fromY, toX, toY);
 
             if (deltaX == 0 && deltaY == 0) {
                 dispatchFinished(info, info.holder);
                 info.clear(info.holder);
+                recycleAnimationInfo(info);
                 return false;
             }
 
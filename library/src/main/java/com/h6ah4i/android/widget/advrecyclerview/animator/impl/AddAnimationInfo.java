@@ -21,7 +21,14 @@ import android.support.v7.widget.RecyclerView;
 public class AddAnimationInfo extends ItemAnimationInfo {
     public RecyclerView.ViewHolder holder;
 
+    public AddAnimationInfo() {
+    }
+
     public AddAnimationInfo(RecyclerView.ViewHolder holder) {
+        set(holder);
+    }
+
+    public void set(RecyclerView.ViewHolder holder) {
         this.holder = holder;
     }
 
@@ -32,7 +39,7 @@ public class AddAnimationInfo extends ItemAnimationInfo {
 
     @Override
     public void clear(RecyclerView.ViewHolder item) {
-        if (holder == null) {
+        if (holder == item) {
             holder = null;
         }
     }
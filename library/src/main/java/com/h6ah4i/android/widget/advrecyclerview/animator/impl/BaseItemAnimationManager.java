@@ -25,6 +25,7 @@ import android.view.View;
 import com.h6ah4i.android.widget.advrecyclerview.animator.BaseItemAnimator;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
@@ -33,11 +34,36 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
     protected List<List<T>> mDeferredReadySets;
     protected List<RecyclerView.ViewHolder> mActive;
 
+    // NOTE: the animation infos, the listeners and the deferred ready sets are recycled to avoid allocations on every batch
+    private List<T> mInfoPool;
+    private List<BaseAnimatorListener> mListenerPool;
+    private List<DeferredReadySetProcess> mDeferredProcessPool;
+
+    // NOTE:
+    // Identity maps from the view holders to their animation records, RecyclerView calls endAnimation()
+    // for many holders during a layout pass and scanning the lists for each of them is quadratic.
+    // (The ended infos are left in the lists as cleared entries and dropped when the list is processed.)
+    private IdentityHashMap<RecyclerView.ViewHolder, T> mPendingIndex;
+    private IdentityHashMap<RecyclerView.ViewHolder, T> mDeferredIndex;
+    private IdentityHashMap<RecyclerView.ViewHolder, BaseAnimatorListener> mActiveIndex;
+
+    // ready infos which are waiting for the concurrent animation budget (see BaseItemAnimator.canStartItemAnimation())
+    // NOTE: these are also indexed by mDeferredIndex
+    private List<T> mWaiting;
+    private int mWaitingHead;
+
     public BaseItemAnimationManager(BaseItemAnimator itemAnimator) {
         mItemAnimator = itemAnimator;
         mPending = new ArrayList<>();
         mActive = new ArrayList<>();
         mDeferredReadySets = new ArrayList<>();
+        mInfoPool = new ArrayList<>();
+        mListenerPool = new ArrayList<>();
+        mDeferredProcessPool = new ArrayList<>();
+        mPendingIndex = new IdentityHashMap<>();
+        mDeferredIndex = new IdentityHashMap<>();
+        mActiveIndex = new IdentityHashMap<>();
+        mWaiting = new ArrayList<>();
     }
 
     protected final boolean debugLogEnabled() {
@@ -45,52 +71,176 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
     }
 
     public boolean hasPending() {
-        return !mPending.isEmpty();
+        return !mPendingIndex.isEmpty();
+    }
+
+    /**
+     * @return Number of the view holders which have pending animations
+     */
+    public int getPendingCount() {
+        return mPendingIndex.size();
+    }
+
+    public RecyclerView.ViewHolder findPendingViewHolder() {
+        final List<T> pending = mPending;
+
+        for (int i = 0; i < pending.size(); i++) {
+            final RecyclerView.ViewHolder holder = pending.get(i).getAvailableViewHolder();
+            if (holder != null) {
+                return holder;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Number of the view holders which are being animated
+     */
+    public int getActiveCount() {
+        return mActive.size();
     }
 
     public boolean isRunning() {
-        return !mPending.isEmpty() || !mActive.isEmpty() || !mDeferredReadySets.isEmpty();
+        return !mPendingIndex.isEmpty() || !mActive.isEmpty() || !mDeferredIndex.isEmpty();
     }
 
     public boolean removeFromActive(RecyclerView.ViewHolder item) {
-        return mActive.remove(item);
+        final BaseAnimatorListener listener = mActiveIndex.remove(item);
+
+        if (listener == null) {
+            return false;
+        }
+
+        // swap with the last element to remove in constant time (the order of the active list doesn't matter)
+        final List<RecyclerView.ViewHolder> active = mActive;
+        final int index = listener.mActiveIndex;
+        final int lastIndex = active.size() - 1;
+
+        if (index != lastIndex) {
+            final RecyclerView.ViewHolder last = active.get(lastIndex);
+            active.set(index, last);
+            mActiveIndex.get(last).mActiveIndex = index;
+        }
+        active.remove(lastIndex);
+        listener.mActiveIndex = -1;
+
+        return true;
     }
 
     public void cancelAllStartedAnimations() {
         final List<RecyclerView.ViewHolder> active = mActive;
         for (int i = active.size() - 1; i >= 0; i--) {
-            final View view = active.get(i).itemView;
-            ViewCompat.animate(view).cancel();
+            // NOTE: the cancelled item is removed from the list by swapping with the last one
+            if (i < active.size()) {
+                final View view = active.get(i).itemView;
+                ViewCompat.animate(view).cancel();
+            }
         }
     }
 
     public void runPendingAnimations(boolean deferred, long deferredDelay) {
-        final List<T> ready = new ArrayList<>();
+        final List<T> pending = mPending;
 
-        ready.addAll(mPending);
-        mPending.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
 
-        if (deferred) {
-            mDeferredReadySets.add(ready);
+        final DeferredReadySetProcess process = obtainDeferredProcess();
+        final List<T> ready = process.mReady;
 
-            final Runnable process = new Runnable() {
-                @Override
-                public void run() {
-                    for (T info : ready) {
-                        createAnimation(info);
-                    }
-                    ready.clear();
-                    mDeferredReadySets.remove(ready);
-                }
-            };
+        // NOTE: don't use addAll(), it allocates a temporary array
+        for (int i = 0; i < pending.size(); i++) {
+            final T info = pending.get(i);
+
+            if (info.isCleared()) {
+                // already ended by endPendingAnimations()
+                recycleAnimationInfo(info);
+                continue;
+            }
+
+            removeFromIndex(mPendingIndex, info);
+            addToIndex(mDeferredIndex, info);
+            ready.add(info);
+        }
+        pending.clear();
+
+        if (ready.isEmpty()) {
+            mDeferredProcessPool.add(process);
+        } else if (deferred) {
+            mDeferredReadySets.add(ready);
 
             final View view = ready.get(0).getAvailableViewHolder().itemView;
             ViewCompat.postOnAnimationDelayed(view, process, deferredDelay);
         } else {
-            for (T info : ready) {
-                createAnimation(info);
+            runDeferredReadySet(process);
+        }
+    }
+
+    private DeferredReadySetProcess obtainDeferredProcess() {
+        final int count = mDeferredProcessPool.size();
+        return (count > 0) ? mDeferredProcessPool.remove(count - 1) : new DeferredReadySetProcess();
+    }
+
+    /*package*/ void runDeferredReadySet(DeferredReadySetProcess process) {
+        final List<T> ready = process.mReady;
+
+        // NOTE: the set may have been emptied by endAllDeferredReadyAnimations()
+        for (int i = 0; i < ready.size(); i++) {
+            final T info = ready.get(i);
+
+            if (info.isCleared()) {
+                // already ended by endDeferredReadyAnimations()
+                recycleAnimationInfo(info);
+                continue;
             }
-            ready.clear();
+
+            if (mWaitingHead < mWaiting.size() || !mItemAnimator.canStartItemAnimation()) {
+                // keep the order, the waiting ones are started first
+                mWaiting.add(info);
+                continue;
+            }
+
+            removeFromIndex(mDeferredIndex, info);
+            createAnimation(info);
+        }
+        ready.clear();
+        mDeferredReadySets.remove(ready);
+
+        mDeferredProcessPool.add(process);
+    }
+
+    /**
+     * Starts the waiting animations as long as {@link BaseItemAnimator#canStartItemAnimation()} allows.
+     */
+    public void startWaitingAnimations() {
+        final List<T> waiting = mWaiting;
+
+        while (mWaitingHead < waiting.size()) {
+            final T info = waiting.get(mWaitingHead);
+
+            if (info.isCleared()) {
+                // already ended by endDeferredReadyAnimations()
+                waiting.set(mWaitingHead, null);
+                mWaitingHead += 1;
+                recycleAnimationInfo(info);
+                continue;
+            }
+
+            if (!mItemAnimator.canStartItemAnimation()) {
+                break;
+            }
+
+            waiting.set(mWaitingHead, null);
+            mWaitingHead += 1;
+
+            removeFromIndex(mDeferredIndex, info);
+            createAnimation(info);
+        }
+
+        if (mWaitingHead >= waiting.size()) {
+            waiting.clear();
+            mWaitingHead = 0;
         }
     }
 
@@ -103,19 +253,25 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
     public abstract void setDuration(long duration);
 
     public void endPendingAnimations(RecyclerView.ViewHolder item) {
+        if (item != null) {
+            // NOTE: the ended info is left in the list and dropped by runPendingAnimations()
+            endNotStartedAnimationByIndex(mPendingIndex, item);
+            return;
+        }
+
         final List<T> pending = mPending;
 
         for (int i = pending.size() - 1; i >= 0; i--) {
             final T info = pending.get(i);
 
-            if (endNotStartedAnimation(info, item) && (item != null)) {
-                pending.remove(i);
+            if (!info.isCleared()) {
+                endNotStartedAnimation(info, null);
             }
+            recycleAnimationInfo(info);
         }
 
-        if (item == null) {
-            pending.clear();
-        }
+        pending.clear();
+        mPendingIndex.clear();
     }
 
     public void endAllPendingAnimations() {
@@ -123,31 +279,73 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
     }
 
     public void endDeferredReadyAnimations(RecyclerView.ViewHolder item) {
+        if (item != null) {
+            // NOTE: the ended info is left in the set and dropped by runDeferredReadySet()
+            endNotStartedAnimationByIndex(mDeferredIndex, item);
+            return;
+        }
+
         for (int i = mDeferredReadySets.size() - 1; i >= 0; i--) {
             final List<T> ready = mDeferredReadySets.get(i);
 
             for (int j = ready.size() - 1; j >= 0; j--) {
                 final T info = ready.get(j);
 
-                if (endNotStartedAnimation(info, item) && (item != null)) {
-                    ready.remove(j);
+                if (!info.isCleared()) {
+                    endNotStartedAnimation(info, null);
                 }
+                recycleAnimationInfo(info);
             }
 
-            if (item == null) {
-                ready.clear();
-            }
+            ready.clear();
+        }
 
-            if (ready.isEmpty()) {
-                mDeferredReadySets.remove(ready);
+        final List<T> waiting = mWaiting;
+        for (int i = waiting.size() - 1; i >= mWaitingHead; i--) {
+            final T info = waiting.get(i);
+
+            if (!info.isCleared()) {
+                endNotStartedAnimation(info, null);
             }
+            recycleAnimationInfo(info);
         }
+        waiting.clear();
+        mWaitingHead = 0;
+
+        mDeferredReadySets.clear();
+        mDeferredIndex.clear();
     }
 
     public void endAllDeferredReadyAnimations() {
         endDeferredReadyAnimations(null);
     }
 
+    private void endNotStartedAnimationByIndex(IdentityHashMap<RecyclerView.ViewHolder, T> index, RecyclerView.ViewHolder item) {
+        final T info = index.remove(item);
+
+        if (info != null) {
+            endNotStartedAnimation(info, item);
+        }
+    }
+
+    private static <T extends ItemAnimationInfo> void addToIndex(IdentityHashMap<RecyclerView.ViewHolder, T> index, T info) {
+        for (int i = 0; i < info.getViewHolderCount(); i++) {
+            final RecyclerView.ViewHolder holder = info.getViewHolder(i);
+            if (holder != null) {
+                index.put(holder, info);
+            }
+        }
+    }
+
+    private static <T extends ItemAnimationInfo> void removeFromIndex(IdentityHashMap<RecyclerView.ViewHolder, T> index, T info) {
+        for (int i = 0; i < info.getViewHolderCount(); i++) {
+            final RecyclerView.ViewHolder holder = info.getViewHolder(i);
+            if (holder != null) {
+                index.remove(holder);
+            }
+        }
+    }
+
     /*package*/ void createAnimation(T info) {
         onCreateAnimation(info);
     }
@@ -160,24 +358,63 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
         mItemAnimator.dispatchFinishedWhenDone();
     }
 
+    /**
+     * Obtains an animation info from the pool. The info is recycled automatically after all of its
+     * view holders are cleared, so don't keep references to it.
+     */
+    protected T obtainAnimationInfo() {
+        final int count = mInfoPool.size();
+        return (count > 0) ? mInfoPool.remove(count - 1) : createAnimationInfo();
+    }
+
+    protected void recycleAnimationInfo(T info) {
+        mInfoPool.add(info);
+    }
+
+    protected abstract T createAnimationInfo();
+
     protected void enqueuePendingAnimationInfo(T info) {
         if (info == null) {
             throw new IllegalStateException("info is null");
         }
         mPending.add(info);
+        addToIndex(mPendingIndex, info);
     }
 
     protected void startActiveItemAnimation(T info, RecyclerView.ViewHolder holder, ViewPropertyAnimatorCompat animator) {
-        animator.setListener(new BaseAnimatorListener(this, info, holder, animator));
-        addActiveAnimationTarget(holder);
+        final BaseAnimatorListener listener = obtainAnimatorListener(info, holder, animator);
+        final long startDelay = mItemAnimator.getItemAnimationStartDelay(info, holder);
+
+        if (startDelay > 0) {
+            animator.setStartDelay(startDelay);
+            // NOTE: the start delay of the view's animator persists, it is reset when this animation ends
+            listener.mResetStartDelay = true;
+        }
+
+        animator.setListener(listener);
+        addActiveAnimationTarget(holder, listener);
         animator.start();
     }
 
-    private void addActiveAnimationTarget(RecyclerView.ViewHolder item) {
+    private BaseAnimatorListener obtainAnimatorListener(T info, RecyclerView.ViewHolder holder, ViewPropertyAnimatorCompat animator) {
+        final int count = mListenerPool.size();
+
+        if (count > 0) {
+            final BaseAnimatorListener listener = mListenerPool.remove(count - 1);
+            listener.set(this, info, holder, animator);
+            return listener;
+        } else {
+            return new BaseAnimatorListener(this, info, holder, animator);
+        }
+    }
+
+    private void addActiveAnimationTarget(RecyclerView.ViewHolder item, BaseAnimatorListener listener) {
         if (item == null) {
             throw new IllegalStateException("item is null");
         }
+        listener.mActiveIndex = mActive.size();
         mActive.add(item);
+        mActiveIndex.put(item, listener);
     }
 
     protected abstract void onCreateAnimation(final T info);
@@ -196,8 +433,14 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
         private ItemAnimationInfo mAnimationInfo;
         private RecyclerView.ViewHolder mHolder;
         private ViewPropertyAnimatorCompat mAnimator;
+        /*package*/ int mActiveIndex = -1;
+        /*package*/ boolean mResetStartDelay;
 
         public BaseAnimatorListener(BaseItemAnimationManager manager, ItemAnimationInfo info, RecyclerView.ViewHolder holder, ViewPropertyAnimatorCompat animator) {
+            set(manager, info, holder, animator);
+        }
+
+        /*package*/ void set(BaseItemAnimationManager manager, ItemAnimationInfo info, RecyclerView.ViewHolder holder, ViewPropertyAnimatorCompat animator) {
             mManager = manager;
             mAnimationInfo = info;
             mHolder = holder;
@@ -216,6 +459,10 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
             final RecyclerView.ViewHolder holder = mHolder;
 
             mAnimator.setListener(null);
+            if (mResetStartDelay) {
+                mAnimator.setStartDelay(0);
+                mResetStartDelay = false;
+            }
             mManager = null;
             mAnimationInfo = null;
             mHolder = null;
@@ -224,7 +471,15 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
             manager.onAnimationEndedSuccessfully(info, holder);
             manager.dispatchFinished(info, holder);
             info.clear(holder);
-            manager.mActive.remove(holder);
+            if (info.isCleared()) {
+                manager.recycleAnimationInfo(info);
+            }
+            // NOTE: the holder may have been removed by GeneralItemAnimator.endAnimation() and started another animation
+            if (manager.mActiveIndex.get(holder) == this) {
+                manager.removeFromActive(holder);
+            }
+            manager.mListenerPool.add(this);
+            manager.mItemAnimator.onItemAnimationEnded();
             manager.dispatchFinishedWhenDone();
         }
 
@@ -233,5 +488,14 @@ public abstract class BaseItemAnimationManager<T extends ItemAnimationInfo> {
             mManager.onAnimationCancel(mAnimationInfo, mHolder);
         }
     }
+
+    private class DeferredReadySetProcess implements Runnable {
+        /*package*/ final List<T> mReady = new ArrayList<>();
+
+        @Override
+        public void run() {
+            runDeferredReadySet(this);
+        }
+    }
 }
 
@@ -22,8 +22,16 @@ public class ChangeAnimationInfo extends ItemAnimationInfo {
     public RecyclerView.ViewHolder newHolder, oldHolder;
     public int fromX, fromY, toX, toY;
 
+    public ChangeAnimationInfo() {
+    }
+
     public ChangeAnimationInfo(RecyclerView.ViewHolder oldHolder, RecyclerView.ViewHolder newHolder,
                                int fromX, int fromY, int toX, int toY) {
+        set(oldHolder, newHolder, fromX, fromY, toX, toY);
+    }
+
+    public void set(RecyclerView.ViewHolder oldHolder, RecyclerView.ViewHolder newHolder,
+                    int fromX, int fromY, int toX, int toY) {
         this.oldHolder = oldHolder;
         this.newHolder = newHolder;
         this.fromX = fromX;
@@ -37,6 +45,23 @@ public class ChangeAnimationInfo extends ItemAnimationInfo {
         return (oldHolder != null) ? oldHolder : newHolder;
     }
 
+    @Override
+    public int getViewHolderCount() {
+        return 2;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder getViewHolder(int index) {
+        switch (index) {
+            case 0:
+                return oldHolder;
+            case 1:
+                return newHolder;
+            default:
+                return null;
+        }
+    }
+
     @Override
     public void clear(RecyclerView.ViewHolder item) {
         if (oldHolder == item) {
@@ -28,6 +28,11 @@ public abstract class ItemAddAnimationManager extends BaseItemAnimationManager<A
         super(itemAnimator);
     }
 
+    @Override
+    protected AddAnimationInfo createAnimationInfo() {
+        return new AddAnimationInfo();
+    }
+
     @Override
     public long getDuration() {
         return mItemAnimator.getAddDuration();
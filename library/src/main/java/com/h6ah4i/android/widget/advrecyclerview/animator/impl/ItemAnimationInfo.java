@@ -22,5 +22,24 @@ public abstract class ItemAnimationInfo {
     public abstract RecyclerView.ViewHolder getAvailableViewHolder();
 
     public abstract void clear(RecyclerView.ViewHolder holder);
+
+    public int getViewHolderCount() {
+        return 1;
+    }
+
+    /**
+     * @param index Index of the view holder. (0 to {@link #getViewHolderCount()} - 1)
+     * @return The view holder, or null if it has been cleared
+     */
+    public RecyclerView.ViewHolder getViewHolder(int index) {
+        return (index == 0) ? getAvailableViewHolder() : null;
+    }
+
+    /**
+     * @return Whether all the view holders have been cleared (the info can be recycled)
+     */
+    public boolean isCleared() {
+        return (getAvailableViewHolder() == null);
+    }
 }
 
@@ -44,6 +44,11 @@ public abstract class ItemChangeAnimationManager extends BaseItemAnimationManage
         mItemAnimator.dispatchChangeFinished(item, (item == info.oldHolder));
     }
 
+    @Override
+    protected ChangeAnimationInfo createAnimationInfo() {
+        return new ChangeAnimationInfo();
+    }
+
     @Override
     public long getDuration() {
         return mItemAnimator.getChangeDuration();
@@ -28,6 +28,11 @@ public abstract class ItemMoveAnimationManager extends BaseItemAnimationManager<
         super(itemAnimator);
     }
 
+    @Override
+    protected MoveAnimationInfo createAnimationInfo() {
+        return new MoveAnimationInfo();
+    }
+
     @Override
     public long getDuration() {
         return mItemAnimator.getMoveDuration();
@@ -28,6 +28,11 @@ public abstract class ItemRemoveAnimationManager extends BaseItemAnimationManage
         super(itemAnimator);
     }
 
+    @Override
+    protected RemoveAnimationInfo createAnimationInfo() {
+        return new RemoveAnimationInfo();
+    }
+
     @Override
     public long getDuration() {
         return mItemAnimator.getRemoveDuration();
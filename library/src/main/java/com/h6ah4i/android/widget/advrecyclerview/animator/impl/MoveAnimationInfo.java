@@ -22,7 +22,14 @@ public class MoveAnimationInfo extends ItemAnimationInfo {
     public RecyclerView.ViewHolder holder;
     public int fromX, fromY, toX, toY;
 
+    public MoveAnimationInfo() {
+    }
+
     public MoveAnimationInfo(RecyclerView.ViewHolder holder, int fromX, int fromY, int toX, int toY) {
+        set(holder, fromX, fromY, toX, toY);
+    }
+
+    public void set(RecyclerView.ViewHolder holder, int fromX, int fromY, int toX, int toY) {
         this.holder = holder;
         this.fromX = fromX;
         this.fromY = fromY;
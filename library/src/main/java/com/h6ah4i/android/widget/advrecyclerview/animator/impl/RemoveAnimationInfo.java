@@ -21,7 +21,14 @@ import android.support.v7.widget.RecyclerView;
 public class RemoveAnimationInfo extends ItemAnimationInfo {
     public RecyclerView.ViewHolder holder;
 
+    public RemoveAnimationInfo() {
+    }
+
     public RemoveAnimationInfo(RecyclerView.ViewHolder holder) {
+        set(holder);
+    }
+
+    public void set(RecyclerView.ViewHolder holder) {
         this.holder = holder;
     }
 
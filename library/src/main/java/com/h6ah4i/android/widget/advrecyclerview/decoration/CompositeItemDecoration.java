@@ -0,0 +1,236 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.decoration;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
+
+import java.util.ArrayList;
+
+/**
+ * Item decoration which hosts multiple decorations as layers and draws all of them in a single pass.
+ *
+ * The child views are read once per frame into a {@link VisibleChildrenSnapshot} which is shared by all
+ * of the layers, instead of every decoration capturing the children on its own. Layers are drawn in the order
+ * they are added (each layer draws all of the children before the next one, as same as stacked decorations),
+ * and consecutive layers which have the same clip bounds share a single clip save.
+ */
+public class CompositeItemDecoration extends RecyclerView.ItemDecoration {
+    private final ArrayList<Layer> mLayers = new ArrayList<Layer>();
+    private final VisibleChildrenSnapshot mChildren = new VisibleChildrenSnapshot();
+    private final Rect mClipBounds = new Rect();
+    private final Rect mLayerClipBounds = new Rect();
+    private final Rect mTmpRect = new Rect();
+    private boolean mChildrenCaptured; // true between onDraw() and onDrawOver()
+
+    /**
+     * Layer of {@link CompositeItemDecoration}.
+     */
+    public static abstract class Layer {
+        /**
+         * Gets the clip bounds which are required by {@link #onDrawChild(Canvas, RecyclerView, VisibleChildrenSnapshot, int)}
+         * or {@link #onDrawChildOver(Canvas, RecyclerView, VisibleChildrenSnapshot, int)}.
+         *
+         * @param parent    The RecyclerView
+         * @param over      True for the pass over the items, false for the pass under the items
+         * @param outBounds Receives the clip bounds
+         * @return False if this layer doesn't draw anything per child in the pass
+         */
+        public boolean getChildClipBounds(RecyclerView parent, boolean over, Rect outBounds) {
+            return false;
+        }
+
+        /**
+         * Draws under the child view at the specified index.
+         */
+        public void onDrawChild(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children, int index) {
+        }
+
+        /**
+         * Draws over the child view at the specified index.
+         */
+        public void onDrawChildOver(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children, int index) {
+        }
+
+        /**
+         * Draws under the items, after the child traversal.
+         */
+        public void onDraw(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
+        }
+
+        /**
+         * Draws over the items, after the child traversal.
+         */
+        public void onDrawOver(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
+        }
+
+        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+            outRect.set(0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Gets the snapshot of the child views which was captured at the last frame.
+     *
+     * @return The snapshot (don't modify it)
+     */
+    public VisibleChildrenSnapshot getChildrenSnapshot() {
+        return mChildren;
+    }
+
+    /**
+     * Adds the layer on top of the other layers.
+     *
+     * @param layer The layer
+     */
+    public void addLayer(Layer layer) {
+        addLayer(mLayers.size(), layer);
+    }
+
+    /**
+     * Adds the layer at the specified position in the drawing order.
+     *
+     * NOTE: Call {@link RecyclerView#requestLayout()} if the layer changes the item offsets.
+     *
+     * @param index The position (0: bottom)
+     * @param layer The layer
+     */
+    public void addLayer(int index, Layer layer) {
+        if (layer == null) {
+            throw new IllegalArgumentException("layer is null");
+        }
+
+        if (mLayers.contains(layer)) {
+            throw new IllegalStateException("The layer has already been added");
+        }
+
+        mLayers.add(index, layer);
+    }
+
+    public boolean removeLayer(Layer layer) {
+        return mLayers.remove(layer);
+    }
+
+    public int indexOfLayer(Layer layer) {
+        return mLayers.indexOf(layer);
+    }
+
+    public int getLayerCount() {
+        return mLayers.size();
+    }
+
+    @Override
+    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        mChildren.capture(parent);
+        mChildrenCaptured = true;
+
+        draw(c, parent, false);
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (!mChildrenCaptured) {
+            mChildren.capture(parent);
+        }
+
+        draw(c, parent, true);
+
+        mChildrenCaptured = false;
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        final ArrayList<Layer> layers = mLayers;
+        final int layerCount = layers.size();
+        final Rect tmp = mTmpRect;
+
+        outRect.set(0, 0, 0, 0);
+
+        for (int i = 0; i < layerCount; i++) {
+            tmp.set(0, 0, 0, 0);
+            layers.get(i).getItemOffsets(tmp, view, parent, state);
+
+            outRect.left += tmp.left;
+            outRect.top += tmp.top;
+            outRect.right += tmp.right;
+            outRect.bottom += tmp.bottom;
+        }
+    }
+
+    private void draw(Canvas c, RecyclerView parent, boolean over) {
+        final ArrayList<Layer> layers = mLayers;
+        final int layerCount = layers.size();
+        final VisibleChildrenSnapshot children = mChildren;
+        final int childCount = children.getCount();
+
+        if (layerCount == 0) {
+            return;
+        }
+
+        // child traversal
+        if (childCount > 0) {
+            final Rect clipBounds = mClipBounds;
+            int savedCount = -1;
+
+            for (int j = 0; j < layerCount; j++) {
+                final Layer layer = layers.get(j);
+
+                if (!layer.getChildClipBounds(parent, over, mLayerClipBounds)) {
+                    continue;
+                }
+
+                // NOTE: the clip is shared with the previous layer if the bounds are same
+                if (savedCount < 0 || !clipBounds.equals(mLayerClipBounds)) {
+                    if (savedCount >= 0) {
+                        c.restoreToCount(savedCount);
+                    }
+
+                    clipBounds.set(mLayerClipBounds);
+                    savedCount = c.save(Canvas.CLIP_SAVE_FLAG);
+                    c.clipRect(clipBounds);
+                }
+
+                for (int i = 0; i < childCount; i++) {
+                    if (over) {
+                        layer.onDrawChildOver(c, parent, children, i);
+                    } else {
+                        layer.onDrawChild(c, parent, children, i);
+                    }
+                }
+            }
+
+            if (savedCount >= 0) {
+                c.restoreToCount(savedCount);
+            }
+        }
+
+        // per-frame drawing
+        for (int j = 0; j < layerCount; j++) {
+            final Layer layer = layers.get(j);
+
+            if (over) {
+                layer.onDrawOver(c, parent, children);
+            } else {
+                layer.onDraw(c, parent, children);
+            }
+        }
+    }
+}
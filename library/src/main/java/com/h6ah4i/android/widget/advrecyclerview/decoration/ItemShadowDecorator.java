@@ -22,59 +22,310 @@ import android.graphics.drawable.NinePatchDrawable;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
+
+import java.lang.ref.WeakReference;
 
 public class ItemShadowDecorator extends RecyclerView.ItemDecoration {
     private final NinePatchDrawable mShadowDrawable;
     private final Rect mShadowPadding = new Rect();
 
+    private final Rect mTmpRect = new Rect();
+    private final Rect mTmpShadowBounds = new Rect();
+    private Layer mLayer;
+
+    private WeakReference<RecyclerView> mObservingRecyclerView;
+    private ViewTreeObserver mViewTreeObserver;
+    private boolean mInvalidatePending;
+
+    // shadow bounds of the last drawn children (translation applied, empty if not drawn),
+    // compared in onPreDraw() to detect the changes of the child views
+    private View[] mDrawnChildren = new View[0];
+    private int[] mDrawnShadowBounds = new int[0];
+    private int mDrawnChildCount;
+
+    private final ViewTreeObserver.OnPreDrawListener mPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            ItemShadowDecorator.this.onPreDraw();
+            return true;
+        }
+    };
+
     public ItemShadowDecorator(NinePatchDrawable shadow) {
         mShadowDrawable = shadow;
         mShadowDrawable.getPadding(mShadowPadding);
     }
 
+    /**
+     * Gets the layer of {@link CompositeItemDecoration} which draws the same shadows as this decoration.
+     *
+     * NOTE: Add either this decoration itself or its layer to the RecyclerView, not both.
+     *
+     * @return The layer
+     */
+    public CompositeItemDecoration.Layer asLayer() {
+        if (mLayer == null) {
+            mLayer = new Layer();
+        }
+        return mLayer;
+    }
+
     @Override
     public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        // NOTE: The child views are iterated directly. (The snapshot is used only by the layer)
         final int childCount = parent.getChildCount();
+        final Rect shadowBounds = mTmpShadowBounds;
 
-        if (childCount == 0) {
-            return;
+        ensureDrawnChildrenCapacity(childCount);
+
+        if (childCount > 0) {
+            int savedCount = c.save(Canvas.CLIP_SAVE_FLAG);
+
+            c.clipRect(getClipBounds(parent, mTmpRect));
+
+            for (int i = 0; i < childCount; i++) {
+                final View child = parent.getChildAt(i);
+
+                getShadowBounds(child, shadowBounds);
+                recordDrawnChild(i, child, shadowBounds);
+                drawShadow(c, shadowBounds);
+            }
+
+            c.restoreToCount(savedCount);
         }
 
-        int savedCount = c.save(Canvas.CLIP_SAVE_FLAG);
+        onChildrenDrawn(parent, childCount);
+
+        // NOTE:
+        // Don't call postInvalidateOnAnimation() here unconditionally (it keeps redrawing even while idle).
+        // Changes of the child view properties are detected in onPreDraw().
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        outRect.set(0, 0, 0, 0);
+    }
 
-        c.clipRect(
+    private Rect getClipBounds(RecyclerView parent, Rect outBounds) {
+        outBounds.set(
                 parent.getLeft() + Math.max(0, parent.getPaddingLeft() - mShadowPadding.left),
                 parent.getTop()/* + Math.max(0, parent.getPaddingTop() - mShadowPadding.top)*/,
                 parent.getRight() - Math.max(0, parent.getPaddingRight() - mShadowPadding.right),
                 parent.getBottom()/* - Math.max(0, parent.getPaddingBottom() - mShadowPadding.bottom)*/);
+        return outBounds;
+    }
+
+    private Rect getShadowBounds(View child, Rect outBounds) {
+        return getShadowBounds(
+                child.getVisibility(), ViewCompat.getAlpha(child),
+                child.getLeft(), child.getTop(), child.getRight(), child.getBottom(),
+                ViewCompat.getTranslationX(child), ViewCompat.getTranslationY(child), outBounds);
+    }
+
+    private Rect getShadowBounds(VisibleChildrenSnapshot children, int index, Rect outBounds) {
+        return getShadowBounds(
+                children.getVisibility(index), children.getAlpha(index),
+                children.getLeft(index), children.getTop(index), children.getRight(index), children.getBottom(index),
+                children.getTranslationX(index), children.getTranslationY(index), outBounds);
+    }
+
+    // NOTE: the bounds are empty if the shadow is not drawn
+    private Rect getShadowBounds(
+            int visibility, float alpha, int left, int top, int right, int bottom,
+            float translationX, float translationY, Rect outBounds) {
+        if ((visibility != View.VISIBLE) || (alpha != 1.0f)) {
+            outBounds.setEmpty();
+            return outBounds;
+        }
+
+        final int tx = (int) (translationX + 0.5f);
+        final int ty = (int) (translationY + 0.5f);
+
+        outBounds.set(
+                left - mShadowPadding.left + tx,
+                top - mShadowPadding.top + ty,
+                right + mShadowPadding.right + tx,
+                bottom + mShadowPadding.bottom + ty);
+        return outBounds;
+    }
+
+    private void drawShadow(Canvas c, Rect shadowBounds) {
+        if (shadowBounds.isEmpty()) {
+            return;
+        }
+
+        final int width = shadowBounds.width();
+        final int height = shadowBounds.height();
+        final Rect bounds = mShadowDrawable.getBounds();
+
+        // NOTE:
+        // The nine-patch is placed at the origin and the canvas is translated instead,
+        // so the bounds are updated only when the size of the item is changed (most items have the same size).
+        if (bounds.left != 0 || bounds.top != 0 || bounds.width() != width || bounds.height() != height) {
+            mShadowDrawable.setBounds(0, 0, width, height);
+        }
+
+        final int dx = shadowBounds.left;
+        final int dy = shadowBounds.top;
+
+        c.translate(dx, dy);
+        mShadowDrawable.draw(c);
+        c.translate(-dx, -dy);
+    }
+
+    private void ensureDrawnChildrenCapacity(int n) {
+        if (mDrawnChildren.length >= n) {
+            return;
+        }
+
+        // NOTE: the references are copied to release the stale ones in onChildrenDrawn()
+        final View[] children = new View[n];
+        System.arraycopy(mDrawnChildren, 0, children, 0, mDrawnChildCount);
+
+        mDrawnChildren = children;
+        mDrawnShadowBounds = new int[n * 4];
+    }
+
+    private void recordDrawnChild(int index, View child, Rect shadowBounds) {
+        final int[] bounds = mDrawnShadowBounds;
+        final int offset = index * 4;
+
+        mDrawnChildren[index] = child;
+        bounds[offset] = shadowBounds.left;
+        bounds[offset + 1] = shadowBounds.top;
+        bounds[offset + 2] = shadowBounds.right;
+        bounds[offset + 3] = shadowBounds.bottom;
+    }
+
+    private void onChildrenDrawn(RecyclerView rv, int childCount) {
+        // release the references to the views which are no longer children
+        for (int i = childCount; i < mDrawnChildCount; i++) {
+            mDrawnChildren[i] = null;
+        }
+
+        mDrawnChildCount = childCount;
+
+        observeRecyclerView(rv);
+        mInvalidatePending = false;
+    }
+
+    private boolean isChildrenChanged(RecyclerView rv) {
+        final int childCount = rv.getChildCount();
+
+        if (childCount != mDrawnChildCount) {
+            return true;
+        }
+
+        final int[] bounds = mDrawnShadowBounds;
+        final Rect shadowBounds = mTmpShadowBounds;
 
         for (int i = 0; i < childCount; i++) {
-            final View child = parent.getChildAt(i);
+            final View child = rv.getChildAt(i);
+            final int offset = i * 4;
+
+            if (child != mDrawnChildren[i]) {
+                return true;
+            }
 
-            if ((child.getVisibility() != View.VISIBLE) ||
-                    (ViewCompat.getAlpha(child) != 1.0f)) {
-                continue;
+            getShadowBounds(child, shadowBounds);
+
+            if ((shadowBounds.left != bounds[offset]) ||
+                    (shadowBounds.top != bounds[offset + 1]) ||
+                    (shadowBounds.right != bounds[offset + 2]) ||
+                    (shadowBounds.bottom != bounds[offset + 3])) {
+                return true;
             }
+        }
 
-            final int tx = (int) (ViewCompat.getTranslationX(child) + 0.5f);
-            final int ty = (int) (ViewCompat.getTranslationY(child) + 0.5f);
+        return false;
+    }
 
-            final int left = child.getLeft() - mShadowPadding.left;
-            final int right = child.getRight() + mShadowPadding.right;
-            final int top = child.getTop() - mShadowPadding.top;
-            final int bottom = child.getBottom() + mShadowPadding.bottom;
+    private void onPreDraw() {
+        final RecyclerView rv = (mObservingRecyclerView != null) ? mObservingRecyclerView.get() : null;
 
-            mShadowDrawable.setBounds(left + tx, top + ty, right + tx, bottom + ty);
-            mShadowDrawable.draw(c);
+        if (rv == null) {
+            stopObservingRecyclerView();
+            return;
         }
 
-        c.restoreToCount(savedCount);
+        if (mInvalidatePending) {
+            // NOTE:
+            // The RecyclerView has been invalidated by the last pre-draw, but this decoration was not drawn.
+            // It has been removed from the RecyclerView (or the RecyclerView is not shown), so the listener
+            // is detached until the next onDraw() instead of comparing against the stale snapshot forever.
+            stopObservingRecyclerView();
+            return;
+        }
 
-        ViewCompat.postInvalidateOnAnimation(parent);
+        // NOTE:
+        // Translation and alpha of the child views are changed without invalidating the RecyclerView
+        // on hardware accelerated windows, so onDraw() is not called for them.
+        if (isChildrenChanged(rv)) {
+            mInvalidatePending = true;
+            rv.invalidate();
+        }
     }
 
-    @Override
-    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-        outRect.set(0, 0, 0, 0);
+    private void observeRecyclerView(RecyclerView rv) {
+        final ViewTreeObserver observer = rv.getViewTreeObserver();
+        final RecyclerView prevRecyclerView = (mObservingRecyclerView != null) ? mObservingRecyclerView.get() : null;
+
+        if (prevRecyclerView == rv && observer == mViewTreeObserver) {
+            return;
+        }
+
+        // NOTE: the observer is replaced when the view is re-attached to a window
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            mViewTreeObserver.removeOnPreDrawListener(mPreDrawListener);
+        }
+
+        observer.addOnPreDrawListener(mPreDrawListener);
+
+        mObservingRecyclerView = new WeakReference<RecyclerView>(rv);
+        mViewTreeObserver = observer;
+    }
+
+    private void stopObservingRecyclerView() {
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            mViewTreeObserver.removeOnPreDrawListener(mPreDrawListener);
+        }
+
+        mObservingRecyclerView = null;
+        mViewTreeObserver = null;
+        mInvalidatePending = false;
+
+        // release the references to the child views
+        for (int i = 0; i < mDrawnChildCount; i++) {
+            mDrawnChildren[i] = null;
+        }
+        mDrawnChildCount = 0;
+    }
+
+    private class Layer extends CompositeItemDecoration.Layer {
+        @Override
+        public boolean getChildClipBounds(RecyclerView parent, boolean over, Rect outBounds) {
+            if (over) {
+                return false;
+            }
+            getClipBounds(parent, outBounds);
+            return true;
+        }
+
+        @Override
+        public void onDrawChild(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children, int index) {
+            final Rect shadowBounds = getShadowBounds(children, index, mTmpShadowBounds);
+
+            ensureDrawnChildrenCapacity(children.getCount());
+            recordDrawnChild(index, children.getChildAt(index), shadowBounds);
+            drawShadow(c, shadowBounds);
+        }
+
+        @Override
+        public void onDraw(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
+            onChildrenDrawn(parent, children.getCount());
+        }
     }
 }
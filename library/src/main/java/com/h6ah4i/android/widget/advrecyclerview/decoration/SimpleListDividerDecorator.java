@@ -23,10 +23,14 @@ import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
+
 public class SimpleListDividerDecorator extends RecyclerView.ItemDecoration {
     private final Drawable mDividerDrawable;
     private final int mDividerHeight;
     private boolean mOverlap;
+    private final Rect mTmpRect = new Rect();
+    private Layer mLayer;
 
     public SimpleListDividerDecorator(Drawable divider, boolean overlap) {
         mDividerDrawable = divider;
@@ -34,11 +38,24 @@ public class SimpleListDividerDecorator extends RecyclerView.ItemDecoration {
         mOverlap = overlap;
     }
 
+    /**
+     * Gets the layer of {@link CompositeItemDecoration} which draws the same dividers as this decoration.
+     *
+     * NOTE: Add either this decoration itself or its layer to the RecyclerView, not both.
+     *
+     * @return The layer
+     */
+    public CompositeItemDecoration.Layer asLayer() {
+        if (mLayer == null) {
+            mLayer = new Layer();
+        }
+        return mLayer;
+    }
+
     @Override
     public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        // NOTE: The child views are iterated directly. (The snapshot is used only by the layer)
         final int childCount = parent.getChildCount();
-        final float yPositionThreshold = (mOverlap) ? 1.0f : (mDividerHeight + 1.0f); // [px]
-        final float zPositionThreshold = 1.0f; // [px]
 
         if (childCount == 0) {
             return;
@@ -46,61 +63,133 @@ public class SimpleListDividerDecorator extends RecyclerView.ItemDecoration {
 
         int savedCount = c.save(Canvas.CLIP_SAVE_FLAG);
 
-        c.clipRect(
+        c.clipRect(getClipBounds(parent, mTmpRect));
+
+        for (int i = 0; i < childCount - 1; i++) {
+            drawDivider(c, parent.getChildAt(i), parent.getChildAt(i + 1));
+        }
+
+        c.restoreToCount(savedCount);
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        if (mOverlap) {
+            outRect.set(0, 0, 0, 0);
+        } else {
+            outRect.set(0, 0, 0, mDividerHeight);
+        }
+    }
+
+    private static Rect getClipBounds(RecyclerView parent, Rect outBounds) {
+        outBounds.set(
                 parent.getLeft() + parent.getPaddingLeft(),
                 parent.getTop() + parent.getPaddingTop(),
                 parent.getRight() - parent.getPaddingRight(),
                 parent.getBottom() + parent.getPaddingBottom());
+        return outBounds;
+    }
 
-        for (int i = 0; i < childCount - 1; i++) {
-            final View child = parent.getChildAt(i);
-            final View nextChild = parent.getChildAt(i + 1);
+    // draws the divider between the child and the next one
+    private void drawDivider(Canvas c, View child, View nextChild) {
+        final float yPositionThreshold = (mOverlap) ? 1.0f : (mDividerHeight + 1.0f); // [px]
+        final float zPositionThreshold = 1.0f; // [px]
 
-            if ((child.getVisibility() != View.VISIBLE) ||
-                    (nextChild.getVisibility() != View.VISIBLE)) {
-                continue;
-            }
+        if ((child.getVisibility() != View.VISIBLE) ||
+                (nextChild.getVisibility() != View.VISIBLE)) {
+            return;
+        }
 
-            // check if the next item is placed at the bottom
-            final float childBottom = child.getBottom() + ViewCompat.getTranslationY(child);
-            final float nextChildTop = nextChild.getTop() + ViewCompat.getTranslationY(nextChild);
+        // check if the next item is placed at the bottom
+        final float childBottom = child.getBottom() + ViewCompat.getTranslationY(child);
+        final float nextChildTop = nextChild.getTop() + ViewCompat.getTranslationY(nextChild);
 
-            if (!(Math.abs(nextChildTop - childBottom) < yPositionThreshold)) {
-                continue;
-            }
+        if (!(Math.abs(nextChildTop - childBottom) < yPositionThreshold)) {
+            return;
+        }
 
-            // check if the next item is placed on the same plane
-            final float childZ = ViewCompat.getTranslationZ(child) + ViewCompat.getElevation(child);
-            final float nextChildZ = ViewCompat.getTranslationZ(nextChild) + ViewCompat.getElevation(nextChild);
+        // check if the next item is placed on the same plane
+        final float childZ = ViewCompat.getTranslationZ(child) + ViewCompat.getElevation(child);
+        final float nextChildZ = ViewCompat.getTranslationZ(nextChild) + ViewCompat.getElevation(nextChild);
 
-            if (!(Math.abs(nextChildZ - childZ) < zPositionThreshold)) {
-                continue;
-            }
+        if (!(Math.abs(nextChildZ - childZ) < zPositionThreshold)) {
+            return;
+        }
+
+        final float childAlpha = ViewCompat.getAlpha(child);
+        final float nextChildAlpha = ViewCompat.getAlpha(nextChild);
+
+        final int tx = (int) (ViewCompat.getTranslationX(child) + 0.5f);
+        final int ty = (int) (ViewCompat.getTranslationY(child) + 0.5f);
+        final int left = child.getLeft();
+        final int right = child.getRight();
+        final int top = child.getBottom();
+        final int bottom = top + mDividerHeight;
+
+        mDividerDrawable.setAlpha((int) ((0.5f * 255) * (childAlpha + nextChildAlpha) + 0.5f));
+        mDividerDrawable.setBounds(left + tx, top + ty, right + tx, bottom + ty);
+        mDividerDrawable.draw(c);
+    }
+
+    // draws the divider between the child at the index and the next one
+    private void drawDivider(Canvas c, VisibleChildrenSnapshot children, int index) {
+        final int next = index + 1;
+        final float yPositionThreshold = (mOverlap) ? 1.0f : (mDividerHeight + 1.0f); // [px]
+        final float zPositionThreshold = 1.0f; // [px]
 
-            final float childAlpha = ViewCompat.getAlpha(child);
-            final float nextChildAlpha = ViewCompat.getAlpha(nextChild);
+        if ((children.getVisibility(index) != View.VISIBLE) ||
+                (children.getVisibility(next) != View.VISIBLE)) {
+            return;
+        }
 
-            final int tx = (int) (ViewCompat.getTranslationX(child) + 0.5f);
-            final int ty = (int) (ViewCompat.getTranslationY(child) + 0.5f);
-            final int left = child.getLeft();
-            final int right = child.getRight();
-            final int top = child.getBottom();
-            final int bottom = top + mDividerHeight;
+        // check if the next item is placed at the bottom
+        final float childBottom = children.getBottom(index) + children.getTranslationY(index);
+        final float nextChildTop = children.getTop(next) + children.getTranslationY(next);
 
-            mDividerDrawable.setAlpha((int) ((0.5f * 255) * (childAlpha + nextChildAlpha) + 0.5f));
-            mDividerDrawable.setBounds(left + tx, top + ty, right + tx, bottom + ty);
-            mDividerDrawable.draw(c);
+        if (!(Math.abs(nextChildTop - childBottom) < yPositionThreshold)) {
+            return;
         }
 
-        c.restoreToCount(savedCount);
+        // check if the next item is placed on the same plane
+        if (!(Math.abs(children.getZ(next) - children.getZ(index)) < zPositionThreshold)) {
+            return;
+        }
+
+        final float childAlpha = children.getAlpha(index);
+        final float nextChildAlpha = children.getAlpha(next);
+
+        final int tx = (int) (children.getTranslationX(index) + 0.5f);
+        final int ty = (int) (children.getTranslationY(index) + 0.5f);
+        final int left = children.getLeft(index);
+        final int right = children.getRight(index);
+        final int top = children.getBottom(index);
+        final int bottom = top + mDividerHeight;
+
+        mDividerDrawable.setAlpha((int) ((0.5f * 255) * (childAlpha + nextChildAlpha) + 0.5f));
+        mDividerDrawable.setBounds(left + tx, top + ty, right + tx, bottom + ty);
+        mDividerDrawable.draw(c);
     }
 
-    @Override
-    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-        if (mOverlap) {
-            outRect.set(0, 0, 0, 0);
-        } else {
-            outRect.set(0, 0, 0, mDividerHeight);
+    private class Layer extends CompositeItemDecoration.Layer {
+        @Override
+        public boolean getChildClipBounds(RecyclerView parent, boolean over, Rect outBounds) {
+            if (!over) {
+                return false;
+            }
+            getClipBounds(parent, outBounds);
+            return true;
+        }
+
+        @Override
+        public void onDrawChildOver(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children, int index) {
+            if (index < children.getCount() - 1) {
+                drawDivider(c, children, index);
+            }
+        }
+
+        @Override
+        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+            SimpleListDividerDecorator.this.getItemOffsets(outRect, view, parent, state);
         }
     }
 }
@@ -0,0 +1,30 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.h6ah4i.android.widget.advrecyclerview.draggable;
+
+public interface AutoScrollEngine {
+
+    /**
+     * Calculates the speed of the auto scroll which occurs when the dragging item is placed near the edge.
+     *
+     * @param edgeProximity How deep the touched point is in the edge zone. 0.0 (just entered) to 1.0 (at the edge).
+     * @param dwellTime Elapsed time since the touched point entered the edge zone. [milliseconds]
+     * @param displayDensity Logical density of the display.
+     *
+     * @return Scroll speed. [pixels per second]
+     */
+    float getScrollSpeed(float edgeProximity, long dwellTime, float displayDensity);
+}
@@ -0,0 +1,76 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.h6ah4i.android.widget.advrecyclerview.draggable;
+
+public class BasicAutoScrollEngine implements AutoScrollEngine {
+    private static final float DEFAULT_MAX_SPEED = 1500; // [dp/s]
+    private static final long DEFAULT_RAMP_UP_DELAY = 1000; // [ms]
+    private static final long DEFAULT_RAMP_UP_DURATION = 4000; // [ms]
+    private static final float DEFAULT_MAX_RAMP_UP_FACTOR = 10.0f;
+
+    private final float mMaxSpeed;
+    private final long mRampUpDelay;
+    private final long mRampUpDuration;
+    private final float mMaxRampUpFactor;
+
+    public BasicAutoScrollEngine() {
+        this(DEFAULT_MAX_SPEED, DEFAULT_RAMP_UP_DELAY, DEFAULT_RAMP_UP_DURATION, DEFAULT_MAX_RAMP_UP_FACTOR);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSpeed Scroll speed at the edge before ramping up. [dp/s]
+     * @param rampUpDelay Dwell time in the edge zone before the speed starts ramping up. [milliseconds]
+     * @param rampUpDuration Time taken to reach the maximum ramp up factor. [milliseconds]
+     * @param maxRampUpFactor Maximum speed multiplier applied by ramping up. (>= 1.0)
+     */
+    public BasicAutoScrollEngine(float maxSpeed, long rampUpDelay, long rampUpDuration, float maxRampUpFactor) {
+        if (!(maxSpeed > 0)) {
+            throw new IllegalArgumentException("Invalid max speed: " + maxSpeed);
+        }
+        if (rampUpDelay < 0 || rampUpDuration < 0) {
+            throw new IllegalArgumentException("Invalid ramp up time: delay = " + rampUpDelay + ", duration = " + rampUpDuration);
+        }
+        if (!(maxRampUpFactor >= 1.0f)) {
+            throw new IllegalArgumentException("Invalid max ramp up factor: " + maxRampUpFactor);
+        }
+
+        mMaxSpeed = maxSpeed;
+        mRampUpDelay = rampUpDelay;
+        mRampUpDuration = rampUpDuration;
+        mMaxRampUpFactor = maxRampUpFactor;
+    }
+
+    @Override
+    public float getScrollSpeed(float edgeProximity, long dwellTime, float displayDensity) {
+        final float proximity = Math.min(Math.max(edgeProximity, 0.0f), 1.0f);
+
+        return (mMaxSpeed * displayDensity) * proximity * getRampUpFactor(dwellTime);
+    }
+
+    private float getRampUpFactor(long dwellTime) {
+        final long t = dwellTime - mRampUpDelay;
+
+        if (t <= 0) {
+            return 1.0f;
+        } else if (t >= mRampUpDuration) {
+            return mMaxRampUpFactor;
+        } else {
+            return 1.0f + (mMaxRampUpFactor - 1.0f) * ((float) t / mRampUpDuration);
+        }
+    }
+}
@@ -34,10 +34,12 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
 
     private RecyclerViewDragDropManager mDragDropManager;
     private DraggableItemAdapter mDraggableItemAdapter;
+    private DraggableItemStateChangeListener mDraggableItemStateChangeListener;
     private RecyclerView.ViewHolder mDraggingItem;
     private long mDraggingItemId = RecyclerView.NO_ID;
     private int mDraggingItemInitialPosition = RecyclerView.NO_POSITION;
     private int mDraggingItemCurrentPosition = RecyclerView.NO_POSITION;
+    private boolean mCommittingMoveOperation;
 
     public DraggableItemWrapperAdapter(RecyclerViewDragDropManager manager, RecyclerView.Adapter<VH> adapter) {
         super(adapter);
@@ -47,6 +49,8 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             throw new IllegalArgumentException("adapter does not implement MovableItemAdapter");
         }
 
+        mDraggableItemStateChangeListener = WrapperAdapterUtils.findWrappedAdapter(adapter, DraggableItemStateChangeListener.class);
+
         if (manager == null) {
             throw new IllegalArgumentException("manager cannot be null");
         }
@@ -59,6 +63,7 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         super.onRelease();
         mDraggingItem = null;
         mDraggableItemAdapter = null;
+        mDraggableItemStateChangeListener = null;
         mDragDropManager = null;
     }
 
@@ -96,31 +101,28 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             safeUpdateFlags(holder, flags);
             super.onBindViewHolder(holder, origPosition);
         } else {
+            // NOTE: the dragged item stays at the current position until the drag is finished
+            final int origPosition = convertToOriginalPosition(
+                    position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
+
             safeUpdateFlags(holder, 0);
-            super.onBindViewHolder(holder, position);
+            super.onBindViewHolder(holder, origPosition);
         }
     }
 
     @Override
     public long getItemId(int position) {
-        if (isDragging()) {
-            final int origPosition = convertToOriginalPosition(
-                    position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
-            return super.getItemId(origPosition);
-        } else {
-            return super.getItemId(position);
-        }
+        // NOTE: convertToOriginalPosition() returns the same position if not dragging
+        final int origPosition = convertToOriginalPosition(
+                position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
+        return super.getItemId(origPosition);
     }
 
     @Override
     public int getItemViewType(int position) {
-        if (isDragging()) {
-            final int origPosition = convertToOriginalPosition(
-                    position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
-            return super.getItemViewType(origPosition);
-        } else {
-            return super.getItemViewType(position);
-        }
+        final int origPosition = convertToOriginalPosition(
+                position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
+        return super.getItemViewType(origPosition);
     }
 
     protected static int convertToOriginalPosition(int position, int dragInitial, int dragCurrent) {
@@ -157,11 +159,24 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (isDragging()) {
-            cancelDrag();
-        } else {
-            notifyDataSetChanged();
+        if (hasDraggingItemPositions()) {
+            // find the dragging item by its ID
+            final int initialPosition = findWrappedAdapterItemPosition(mDraggingItemId);
+
+            if (initialPosition == RecyclerView.NO_POSITION) {
+                // the dragging item has been removed
+                mDraggingItemInitialPosition = RecyclerView.NO_POSITION;
+                mDraggingItemCurrentPosition = RecyclerView.NO_POSITION;
+                cancelDrag();
+            } else {
+                final int lastPosition = getWrappedAdapter().getItemCount() - 1;
+
+                mDraggingItemInitialPosition = initialPosition;
+                mDraggingItemCurrentPosition = Math.min(mDraggingItemCurrentPosition, lastPosition);
+            }
         }
+
+        notifyDataSetChanged();
     }
 
     @Override
@@ -173,8 +188,16 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (isDragging()) {
-            cancelDrag();
+        if (hasDraggingItemPositions()) {
+            final int initial = mDraggingItemInitialPosition;
+
+            if (positionStart <= initial && initial < (positionStart + itemCount)) {
+                // the dragging item itself is included
+                notifyItemChanged(mDraggingItemCurrentPosition);
+                notifyRestItemRangeChanged(positionStart, itemCount - 1);
+            } else {
+                notifyRestItemRangeChanged(toRestPosition(positionStart), itemCount);
+            }
         } else {
             notifyItemRangeChanged(positionStart, itemCount);
         }
@@ -189,8 +212,22 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (isDragging()) {
-            cancelDrag();
+        if (hasDraggingItemPositions()) {
+            final int restStart = toRestPosition(positionStart);
+            final int start;
+
+            if (restStart < mDraggingItemCurrentPosition) {
+                start = restStart;
+                mDraggingItemCurrentPosition += itemCount;
+            } else {
+                start = restStart + 1;
+            }
+
+            if (positionStart <= mDraggingItemInitialPosition) {
+                mDraggingItemInitialPosition += itemCount;
+            }
+
+            notifyItemRangeInserted(start, itemCount);
         } else {
             notifyItemRangeInserted(positionStart, itemCount);
         }
@@ -205,8 +242,29 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (isDragging()) {
-            cancelDrag();
+        if (hasDraggingItemPositions()) {
+            final int initial = mDraggingItemInitialPosition;
+
+            if (positionStart <= initial && initial < (positionStart + itemCount)) {
+                // the dragging item has been removed
+                // (after removing it, positions of the other items are same as the wrapped adapter)
+                notifyItemRemoved(mDraggingItemCurrentPosition);
+
+                mDraggingItemInitialPosition = RecyclerView.NO_POSITION;
+                mDraggingItemCurrentPosition = RecyclerView.NO_POSITION;
+
+                if (itemCount > 1) {
+                    notifyItemRangeRemoved(positionStart, itemCount - 1);
+                }
+
+                cancelDrag();
+            } else {
+                notifyRestItemRangeRemoved(toRestPosition(positionStart), itemCount);
+
+                if (positionStart < initial) {
+                    mDraggingItemInitialPosition -= itemCount;
+                }
+            }
         } else {
             notifyItemRangeRemoved(positionStart, itemCount);
         }
@@ -221,13 +279,119 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (isDragging()) {
-            cancelDrag();
+        if (mCommittingMoveOperation &&
+                (fromPosition == mDraggingItemInitialPosition) &&
+                (toPosition == mDraggingItemCurrentPosition)) {
+            // already reflected to the RecyclerView while dragging
+            return;
+        }
+
+        if (hasDraggingItemPositions()) {
+            if (itemCount != 1) {
+                onWrappedAdapterChanged();
+                return;
+            }
+
+            if (fromPosition == mDraggingItemInitialPosition) {
+                // the dragging item itself has been moved in the wrapped adapter,
+                // the other items are not affected
+                mDraggingItemInitialPosition = toPosition;
+                return;
+            }
+
+            // remove
+            final int restFrom = toRestPosition(fromPosition);
+            final int from = toPresentedPosition(restFrom);
+
+            if (restFrom < mDraggingItemCurrentPosition) {
+                mDraggingItemCurrentPosition -= 1;
+            }
+            if (fromPosition < mDraggingItemInitialPosition) {
+                mDraggingItemInitialPosition -= 1;
+            }
+
+            // insert
+            final int restTo = toRestPosition(toPosition);
+            final int to;
+
+            if (restTo < mDraggingItemCurrentPosition) {
+                to = restTo;
+                mDraggingItemCurrentPosition += 1;
+            } else {
+                to = restTo + 1;
+            }
+            if (toPosition <= mDraggingItemInitialPosition) {
+                mDraggingItemInitialPosition += 1;
+            }
+
+            notifyItemMoved(from, to);
         } else {
             notifyItemMoved(fromPosition, toPosition);
         }
     }
 
+    private boolean hasDraggingItemPositions() {
+        return (mDraggingItem != null) &&
+                (mDraggingItemInitialPosition != RecyclerView.NO_POSITION) &&
+                (mDraggingItemCurrentPosition != RecyclerView.NO_POSITION);
+    }
+
+    // NOTE:
+    // While dragging, the RecyclerView sees the wrapped adapter's items except the dragging item (= "rest" items)
+    // in the same order, and the dragging item is placed at mDraggingItemCurrentPosition.
+
+    // wrapped adapter position -> position in the rest items (the position must not be the dragging item)
+    private int toRestPosition(int position) {
+        return (position <= mDraggingItemInitialPosition) ? position : (position - 1);
+    }
+
+    // position in the rest items -> position in the RecyclerView
+    private int toPresentedPosition(int restPosition) {
+        return (restPosition < mDraggingItemCurrentPosition) ? restPosition : (restPosition + 1);
+    }
+
+    private void notifyRestItemRangeChanged(int restStart, int itemCount) {
+        final int current = mDraggingItemCurrentPosition;
+        final int countBefore = Math.max(0, Math.min(current, restStart + itemCount) - restStart);
+        final int countAfter = itemCount - countBefore;
+
+        if (countBefore > 0) {
+            notifyItemRangeChanged(restStart, countBefore);
+        }
+        if (countAfter > 0) {
+            notifyItemRangeChanged(Math.max(current, restStart) + 1, countAfter);
+        }
+    }
+
+    private void notifyRestItemRangeRemoved(int restStart, int itemCount) {
+        final int current = mDraggingItemCurrentPosition;
+        final int countBefore = Math.max(0, Math.min(current, restStart + itemCount) - restStart);
+        final int countAfter = itemCount - countBefore;
+
+        // NOTE: remove the latter part first, the former part is not affected by it
+        if (countAfter > 0) {
+            notifyItemRangeRemoved(Math.max(current, restStart) + 1, countAfter);
+        }
+        if (countBefore > 0) {
+            notifyItemRangeRemoved(restStart, countBefore);
+        }
+
+        mDraggingItemCurrentPosition -= countBefore;
+    }
+
+    private int findWrappedAdapterItemPosition(long itemId) {
+        final RecyclerView.Adapter adapter = getWrappedAdapter();
+        final int itemCount = adapter.getItemCount();
+
+        for (int i = 0; i < itemCount; i++) {
+            if (adapter.getItemId(i) == itemId) {
+                return i;
+            }
+        }
+
+        return RecyclerView.NO_POSITION;
+    }
+
     private void cancelDrag() {
         if (mDragDropManager != null) {
             mDragDropManager.cancelDrag();
@@ -253,7 +417,8 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         mDraggingItem = holder;
         mDraggingItemId = holder.getItemId();
 
-        notifyDataSetChanged();
+        // NOTE: Don't use notifyDataSetChanged() here, it re-binds all the visible items.
+        updateAttachedItemStates(true);
     }
 
     // NOTE: This method is called from RecyclerViewDragDropManager
@@ -270,10 +435,18 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             return;
         }
 
-        if (result && (mDraggingItemCurrentPosition != mDraggingItemInitialPosition)) {
+        final int initialPosition = mDraggingItemInitialPosition;
+        final int currentPosition = mDraggingItemCurrentPosition;
+        final boolean moved = (initialPosition != currentPosition);
+
+        // clear state flags of the attached items (this have to be done before the data set is updated)
+        updateAttachedItemStates(false);
+
+        if (result && moved) {
             // apply to wrapped adapter
-            ((DraggableItemAdapter) getWrappedAdapter()).onMoveItem(
-                    mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
+            mCommittingMoveOperation = true;
+            ((DraggableItemAdapter) getWrappedAdapter()).onMoveItem(initialPosition, currentPosition);
+            mCommittingMoveOperation = false;
         }
 
         mDraggingItemInitialPosition = RecyclerView.NO_POSITION;
@@ -281,7 +454,73 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         mDraggingItemId = RecyclerView.NO_ID;
         mDraggingItem = null;
 
-        notifyDataSetChanged();
+        // NOTE: positions are rebased on adapter updates while dragging, so no need to call notifyDataSetChanged()
+        if (!result && moved) {
+            // revert the position of the dragged item
+            notifyItemMoved(currentPosition, initialPosition);
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(VH holder) {
+        super.onViewAttachedToWindow(holder);
+
+        // NOTE:
+        // Cached views may be attached again without re-binding. Use the same condition as onBindViewHolder(),
+        // the item is refreshed only if its flags are actually changed. (see updateItemState())
+        updateItemState(holder, isDragging());
+    }
+
+    private void updateAttachedItemStates(boolean dragging) {
+        final RecyclerView rv = (mDragDropManager != null) ? mDragDropManager.getRecyclerView() : null;
+
+        if (rv == null) {
+            return;
+        }
+
+        final int childCount = rv.getChildCount();
+
+        for (int i = 0; i < childCount; i++) {
+            updateItemState(rv.getChildViewHolder(rv.getChildAt(i)), dragging);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateItemState(RecyclerView.ViewHolder holder, boolean dragging) {
+        if (!(holder instanceof DraggableItemViewHolder)) {
+            return;
+        }
+
+        final int position = holder.getPosition();
+
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        int flags = 0;
+
+        if (dragging) {
+            flags |= RecyclerViewDragDropManager.STATE_FLAG_DRAGGING;
+
+            if (holder.getItemId() == mDraggingItemId) {
+                flags |= RecyclerViewDragDropManager.STATE_FLAG_IS_ACTIVE;
+            }
+        }
+
+        if (!safeUpdateFlags(holder, flags)) {
+            // not changed, no need to refresh (or re-bind) the item
+            return;
+        }
+
+        if (mDraggableItemStateChangeListener != null) {
+            mDraggableItemStateChangeListener.onDragStateFlagsChanged(
+                    holder, ((DraggableItemViewHolder) holder).getDragStateFlags());
+        } else {
+            // fallback: re-bind only this item (no layout pass is involved)
+            final int origPosition = convertToOriginalPosition(
+                    position, mDraggingItemInitialPosition, mDraggingItemCurrentPosition);
+            super.onBindViewHolder((VH) holder, origPosition);
+        }
     }
 
     @Override
@@ -346,9 +585,9 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         return mDragDropManager.isDragging();
     }
 
-    private static void safeUpdateFlags(RecyclerView.ViewHolder holder, int flags) {
+    private static boolean safeUpdateFlags(RecyclerView.ViewHolder holder, int flags) {
         if (!(holder instanceof DraggableItemViewHolder)) {
-            return;
+            return false;
         }
 
         final DraggableItemViewHolder holder2 = (DraggableItemViewHolder) holder;
@@ -362,6 +601,8 @@ public class DraggableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
 
         ((DraggableItemViewHolder) holder).setDragStateFlags(flags);
+
+        return ((flags & RecyclerViewDragDropManager.STATE_FLAG_IS_UPDATED) != 0);
     }
 
     private static DraggableItemAdapter getDraggableItemAdapter(RecyclerView.Adapter adapter) {
@@ -20,86 +20,138 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.drawable.NinePatchDrawable;
+import android.os.Build;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
 import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
 
-class DraggingItemDecorator extends RecyclerView.ItemDecoration {
+class DraggingItemDecorator extends CompositeItemDecoration.Layer {
     @SuppressWarnings("unused")
     private static final String TAG = "DraggingItemDecorator";
 
+    private static final int RENDERING_MODE_ITEM_DECORATION = 0;
+    private static final int RENDERING_MODE_VIEW_OVERLAY = 1;
+    private static final int RENDERING_MODE_LIVE_ITEM_VIEW = 2;
+
     private RecyclerView mRecyclerView;
     private RecyclerView.ViewHolder mDraggingItem;
-    private RecyclerView.ViewHolder mSwapTargetItem;
+    private VisibleChildrenSnapshot mChildren;
+    private int mGrabbedPositionX;
     private int mGrabbedPositionY;
+    private int mTranslationX;
     private int mTranslationY;
-    private int mRecyclerViewPaddingLeft;
     private Bitmap mDraggingItemImage;
+    private Rect mDraggingItemImageSrcRect = new Rect();
+    private Rect mDraggingItemImageDstRect = new Rect();
+    private Rect mDirtyRect = new Rect();
+    private int mTranslationLeftLimit;
+    private int mTranslationRightLimit;
     private int mTranslationTopLimit;
     private int mTranslationBottomLimit;
+    private int mGrabbedItemWidth;
     private int mGrabbedItemHeight;
+    private int mTouchPositionX;
     private int mTouchPositionY;
+    private int mLayoutType;
+    private int mOrientation;
     private NinePatchDrawable mShadowDrawable;
     private Rect mShadowPadding = new Rect();
     private Rect mDraggingItemMargins = new Rect();
     private Rect mDraggingItemDecorationOffsets = new Rect();
     private boolean mStarted;
     private boolean mIsScrolling;
-
-    public DraggingItemDecorator(RecyclerView recyclerView, RecyclerView.ViewHolder draggingItem) {
+    private int mRenderingMode;
+    private DraggingItemImageOverlay mDraggingItemImageOverlay; // reused for every drag
+    private Canvas mDraggingItemImageCanvas; // reused for every drag
+    private float mDraggingItemElevation;
+    private float mOrigTranslationZ;
+
+    // NOTE: This decorator is installed once and reused for every drag (see start() / finish()),
+    // so starting or finishing a drag doesn't add or remove item decorations (it causes a layout pass).
+    public DraggingItemDecorator(RecyclerView recyclerView, VisibleChildrenSnapshot children) {
         mRecyclerView = recyclerView;
-        mDraggingItem = draggingItem;
-
-        CustomRecyclerViewUtils.getLayoutMargins(mDraggingItem.itemView, mDraggingItemMargins);
-        CustomRecyclerViewUtils.getDecorationOffsets(
-                mRecyclerView.getLayoutManager(), mDraggingItem.itemView, mDraggingItemDecorationOffsets);
+        mChildren = children;
     }
 
     @Override
-    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+    public void onDrawOver(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
         // NOTE:
         // On lollipop or later, View has Z-axis property and no needed to draw the dragging view manually.
-        // However, if the RecyclerView has any other decorations or RecyclerView is in scrolling state,
-        // need to draw it to avoid visual corruptions.
-        if (mDraggingItemImage != null) {
-            final float left = mRecyclerViewPaddingLeft + mDraggingItemMargins.left - mShadowPadding.left;
-            final float top = /*mDraggingItemMargins.top +*/ mTranslationY - mShadowPadding.top;
-            c.drawBitmap(mDraggingItemImage, left, top, null);
+        // (the live item view is raised with translationZ, see start())
+        // On JB MR2 or later, the image is drawn on the ViewOverlay.
+        if (mRenderingMode == RENDERING_MODE_ITEM_DECORATION && mDraggingItemImage != null) {
+            // NOTE: the pooled bitmap may be larger than the dragging item image
+            final int left = mTranslationX - mShadowPadding.left;
+            final int top = /*mDraggingItemMargins.top +*/ mTranslationY - mShadowPadding.top;
+            final Rect src = mDraggingItemImageSrcRect;
+            mDraggingItemImageDstRect.set(left, top, left + src.width(), top + src.height());
+            c.drawBitmap(mDraggingItemImage, src, mDraggingItemImageDstRect, null);
         }
     }
 
-    public void start(MotionEvent e, float grabbedPositionY) {
+    public void start(RecyclerView.ViewHolder draggingItem, MotionEvent e, float grabbedPositionX, float grabbedPositionY) {
         if (mStarted) {
             return;
         }
 
+        mDraggingItem = draggingItem;
+
         final View itemView = mDraggingItem.itemView;
 
+        CustomRecyclerViewUtils.getLayoutMargins(itemView, mDraggingItemMargins);
+        CustomRecyclerViewUtils.getDecorationOffsets(
+                mRecyclerView.getLayoutManager(), itemView, mDraggingItemDecorationOffsets);
+
+        mGrabbedPositionX = (int) (grabbedPositionX + 0.5f);
         mGrabbedPositionY = (int) (grabbedPositionY + 0.5f);
+        mLayoutType = CustomRecyclerViewUtils.getLayoutType(mRecyclerView);
+        mOrientation = CustomRecyclerViewUtils.getOrientation(mRecyclerView);
+
+        mRenderingMode = determineRenderingMode();
 
-        // draw the grabbed item on bitmap
-        mDraggingItemImage = createDraggingItemImage(itemView, mShadowDrawable);
+        if (mRenderingMode == RENDERING_MODE_LIVE_ITEM_VIEW) {
+            // raise the grabbed item above the other items
+            mOrigTranslationZ = ViewCompat.getTranslationZ(itemView);
+            ViewCompat.setTranslationZ(itemView, mOrigTranslationZ + mDraggingItemElevation);
+        } else {
+            // draw the grabbed item on bitmap
+            mDraggingItemImage = createDraggingItemImage(itemView, mShadowDrawable);
+        }
 
+        mGrabbedItemWidth = itemView.getWidth();
         mGrabbedItemHeight = itemView.getHeight();
+        mTranslationLeftLimit = mRecyclerView.getPaddingLeft();
         mTranslationTopLimit = mRecyclerView.getPaddingTop();
-        mRecyclerViewPaddingLeft = mRecyclerView.getPaddingLeft();
 
-        // hide
-        itemView.setVisibility(View.INVISIBLE);
+        // the dragging item moves only along the scrolling axis in linear layouts
+        mTranslationX = itemView.getLeft();
+        mTranslationY = itemView.getTop();
 
-        update(e);
+        if (mRenderingMode != RENDERING_MODE_LIVE_ITEM_VIEW) {
+            // hide
+            itemView.setVisibility(View.INVISIBLE);
+        }
 
-        mRecyclerView.addItemDecoration(this);
+        if (mRenderingMode == RENDERING_MODE_VIEW_OVERLAY) {
+            if (mDraggingItemImageOverlay == null) {
+                mDraggingItemImageOverlay = new DraggingItemImageOverlay(mRecyclerView);
+            }
+            mDraggingItemImageOverlay.attach(mDraggingItemImage, mDraggingItemImageSrcRect);
+        }
+
+        update(e);
 
         mStarted = true;
     }
 
     public void finish() {
-        if (mStarted) {
-            mRecyclerView.removeItemDecoration(this);
+        if (!mStarted) {
+            return;
         }
 
         final RecyclerView.ItemAnimator itemAnimator = mRecyclerView.getItemAnimator();
@@ -108,44 +160,100 @@ class DraggingItemDecorator extends RecyclerView.ItemDecoration {
         }
         mRecyclerView.stopScroll();
 
-        updateDraggingItemPosition(0);
-
+        ViewCompat.setTranslationX(mDraggingItem.itemView, 0.0f);
         ViewCompat.setTranslationY(mDraggingItem.itemView, 0.0f);
 
+        if (mRenderingMode == RENDERING_MODE_LIVE_ITEM_VIEW) {
+            ViewCompat.setTranslationZ(mDraggingItem.itemView, mOrigTranslationZ);
+        }
+
+        if (mDraggingItemImageOverlay != null) {
+            mDraggingItemImageOverlay.detach();
+        }
+
         // show
         mDraggingItem.itemView.setVisibility(View.VISIBLE);
         mDraggingItem = null;
 
         if (mDraggingItemImage != null) {
-            mDraggingItemImage.recycle();
-            mDraggingItemImage = null;
-        }
+            // erase the image
+            if (mRenderingMode == RENDERING_MODE_ITEM_DECORATION && !mDraggingItemImageDstRect.isEmpty()) {
+                final Rect dst = mDraggingItemImageDstRect;
+                ViewCompat.postInvalidateOnAnimation(mRecyclerView, dst.left, dst.top, dst.right, dst.bottom);
+            }
+            mDraggingItemImageDstRect.setEmpty();
 
-        if (mSwapTargetItem != null) {
-            ViewCompat.setTranslationY(mSwapTargetItem.itemView, 0.0f);
-            mSwapTargetItem = null;
+            DraggingItemImagePool.getInstance().release(mDraggingItemImage);
+            mDraggingItemImage = null;
         }
 
+        mGrabbedPositionX = 0;
         mGrabbedPositionY = 0;
+        mTranslationX = 0;
         mTranslationY = 0;
+        mTranslationLeftLimit = 0;
+        mTranslationRightLimit = 0;
         mTranslationTopLimit = 0;
         mTranslationBottomLimit = 0;
-        mRecyclerViewPaddingLeft = 0;
+        mGrabbedItemWidth = 0;
         mGrabbedItemHeight = 0;
+        mTouchPositionX = 0;
         mTouchPositionY = 0;
+        mLayoutType = CustomRecyclerViewUtils.LAYOUT_TYPE_UNKNOWN;
+        mOrientation = CustomRecyclerViewUtils.ORIENTATION_UNKNOWN;
+        mOrigTranslationZ = 0.0f;
+        mRenderingMode = RENDERING_MODE_ITEM_DECORATION;
         mStarted = false;
     }
 
     public void update(MotionEvent e) {
-        mTouchPositionY = (int) (e.getY() + 0.5f);
+        update((int) (e.getX() + 0.5f), (int) (e.getY() + 0.5f));
+    }
+
+    public void update(int touchX, int touchY) {
+        mTouchPositionX = touchX;
+        mTouchPositionY = touchY;
         refresh();
     }
 
     public void refresh() {
         updateTranslationOffset();
-        updateDraggingItemPosition(mTranslationY);
+        updateDraggingItemPosition(mTranslationX, mTranslationY);
+
+        switch (mRenderingMode) {
+            case RENDERING_MODE_ITEM_DECORATION:
+                invalidateDraggingItemImage();
+                break;
+            case RENDERING_MODE_VIEW_OVERLAY:
+                // only the overlay is invalidated
+                mDraggingItemImageOverlay.moveTo(
+                        mTranslationX - mShadowPadding.left,
+                        mTranslationY - mShadowPadding.top);
+                break;
+            case RENDERING_MODE_LIVE_ITEM_VIEW:
+                // the item view has already been moved by updateDraggingItemPosition()
+                break;
+        }
+    }
+
+    private void invalidateDraggingItemImage() {
+        if (mDraggingItemImage == null) {
+            return;
+        }
+
+        // invalidate the union of the previously drawn area and the new one
+        final int left = mTranslationX - mShadowPadding.left;
+        final int top = mTranslationY - mShadowPadding.top;
+        final Rect src = mDraggingItemImageSrcRect;
+        final Rect dirty = mDirtyRect;
+
+        dirty.set(left, top, left + src.width(), top + src.height());
+
+        if (!mDraggingItemImageDstRect.isEmpty()) {
+            dirty.union(mDraggingItemImageDstRect);
+        }
 
-        ViewCompat.postInvalidateOnAnimation(mRecyclerView);
+        ViewCompat.postInvalidateOnAnimation(mRecyclerView, dirty.left, dirty.top, dirty.right, dirty.bottom);
     }
 
     public void setShadowDrawable(NinePatchDrawable shadowDrawable) {
@@ -156,34 +264,76 @@ class DraggingItemDecorator extends RecyclerView.ItemDecoration {
         }
     }
 
+    public void setDraggingItemElevation(float elevation) {
+        mDraggingItemElevation = elevation;
+    }
+
+    public int getDraggingItemTranslationX() {
+        return mTranslationX;
+    }
+
     public int getDraggingItemTranslationY() {
         return mTranslationY;
     }
 
     private void updateTranslationOffset() {
-        final int childCount = mRecyclerView.getChildCount();
-        if (childCount > 0) {
-            mTranslationBottomLimit = Math.max(0, (mRecyclerView.getHeight() - mRecyclerView.getPaddingBottom() - mGrabbedItemHeight));
+        final RecyclerView rv = mRecyclerView;
+        final VisibleChildrenSnapshot children = mChildren;
+
+        children.ensureCaptured(rv);
 
-            if (!mIsScrolling) {
-                final View lastChild = mRecyclerView.getChildAt(childCount - 1);
-                mTranslationBottomLimit = Math.min(mTranslationBottomLimit, lastChild.getTop());
+        final int childCount = children.getCount();
+        final boolean isLinearLayout = CustomRecyclerViewUtils.isLinearLikeLayout(mLayoutType);
+        final int orientation = mOrientation;
+        final boolean moveHorizontally = !isLinearLayout || (orientation == CustomRecyclerViewUtils.ORIENTATION_HORIZONTAL);
+        final boolean moveVertically = !isLinearLayout || (orientation != CustomRecyclerViewUtils.ORIENTATION_HORIZONTAL);
+
+        if (childCount > 0) {
+            mTranslationRightLimit = Math.max(0, (rv.getWidth() - rv.getPaddingRight() - mGrabbedItemWidth));
+            mTranslationBottomLimit = Math.max(0, (rv.getHeight() - rv.getPaddingBottom() - mGrabbedItemHeight));
+
+            // NOTE: the last child is not always placed at the end in unknown layouts
+            if (CustomRecyclerViewUtils.isLinearLayout(mLayoutType) && !mIsScrolling) {
+                final int lastChild = childCount - 1;
+
+                if (moveHorizontally) {
+                    mTranslationRightLimit = Math.min(mTranslationRightLimit, children.getLeft(lastChild));
+                } else {
+                    mTranslationBottomLimit = Math.min(mTranslationBottomLimit, children.getTop(lastChild));
+                }
             }
         } else {
+            mTranslationRightLimit = mTranslationLeftLimit;
             mTranslationBottomLimit = mTranslationTopLimit;
         }
 
-        mTranslationY = mTouchPositionY + -mGrabbedPositionY;
-        mTranslationY = Math.min(Math.max(mTranslationY, mTranslationTopLimit), mTranslationBottomLimit);
+        if (moveHorizontally) {
+            mTranslationX = mTouchPositionX + -mGrabbedPositionX;
+            mTranslationX = Math.min(Math.max(mTranslationX, mTranslationLeftLimit), mTranslationRightLimit);
+        }
+
+        if (moveVertically) {
+            mTranslationY = mTouchPositionY + -mGrabbedPositionY;
+            mTranslationY = Math.min(Math.max(mTranslationY, mTranslationTopLimit), mTranslationBottomLimit);
+        }
     }
 
     private Bitmap createDraggingItemImage(View v, NinePatchDrawable shadow) {
         int width = v.getWidth() + mShadowPadding.left + mShadowPadding.right;
         int height = v.getHeight() + mShadowPadding.top + mShadowPadding.bottom;
 
-        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        // NOTE: the bitmap is acquired only when the drag is actually started, not on every ACTION_DOWN
+        final Bitmap bitmap = DraggingItemImagePool.getInstance().acquire(width, height);
+
+        mDraggingItemImageSrcRect.set(0, 0, width, height);
 
-        final Canvas canvas = new Canvas(bitmap);
+        if (mDraggingItemImageCanvas == null) {
+            mDraggingItemImageCanvas = new Canvas();
+        }
+
+        final Canvas canvas = mDraggingItemImageCanvas;
+
+        canvas.setBitmap(bitmap);
 
         if (shadow != null) {
             shadow.setBounds(0, 0, width, height);
@@ -197,23 +347,45 @@ class DraggingItemDecorator extends RecyclerView.ItemDecoration {
         v.draw(canvas);
         canvas.restoreToCount(savedCount);
 
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            // don't keep the pooled bitmap (setBitmap(null) is not supported on older platforms)
+            canvas.setBitmap(null);
+        }
+
         return bitmap;
     }
 
-    private void updateDraggingItemPosition(int translationY) {
+    private void updateDraggingItemPosition(int translationX, int translationY) {
         // NOTE: Need to update the view position to make other decorations work properly while dragging
-        setItemTranslationY(mRecyclerView, mDraggingItem, translationY - mDraggingItem.itemView.getTop());
+        final View itemView = mDraggingItem.itemView;
+        setItemTranslation(mRecyclerView, mDraggingItem,
+                translationX - itemView.getLeft(), translationY - itemView.getTop());
     }
 
-    private static void setItemTranslationY(RecyclerView rv, RecyclerView.ViewHolder holder, float y) {
+    private static void setItemTranslation(RecyclerView rv, RecyclerView.ViewHolder holder, float x, float y) {
         final RecyclerView.ItemAnimator itemAnimator = rv.getItemAnimator();
         if (itemAnimator != null) {
             itemAnimator.endAnimation(holder);
         }
+        ViewCompat.setTranslationX(holder.itemView, x);
         ViewCompat.setTranslationY(holder.itemView, y);
     }
 
+    public boolean isStarted() {
+        return mStarted;
+    }
+
     public void setIsScrolling(boolean isScrolling) {
         mIsScrolling = isScrolling;
     }
+
+    private static int determineRenderingMode() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return RENDERING_MODE_LIVE_ITEM_VIEW;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return RENDERING_MODE_VIEW_OVERLAY;
+        } else {
+            return RENDERING_MODE_ITEM_DECORATION;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.draggable;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Hosts the dragging item image on the ViewOverlay of the RecyclerView,
+ * so moving it only invalidates the overlay instead of redrawing all of the items.
+ *
+ * NOTE: The overlay is reused for every drag, the image is passed by {@link #attach(Bitmap, Rect)}.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+class DraggingItemImageOverlay {
+    private final View mHost;
+    private final ImageDrawable mDrawable;
+    private boolean mAttached;
+
+    public DraggingItemImageOverlay(View host) {
+        mHost = host;
+        mDrawable = new ImageDrawable();
+    }
+
+    public void attach(Bitmap image, Rect srcRect) {
+        if (!mAttached) {
+            mDrawable.setImage(image, srcRect);
+            mHost.getOverlay().add(mDrawable);
+            mAttached = true;
+        }
+    }
+
+    public void detach() {
+        if (mAttached) {
+            mHost.getOverlay().remove(mDrawable);
+            mDrawable.setImage(null, null);
+            mAttached = false;
+        }
+    }
+
+    public void moveTo(int left, int top) {
+        final Rect bounds = mDrawable.getBounds();
+
+        if (bounds.left == left && bounds.top == top) {
+            return;
+        }
+
+        // invalidate both of the previous and the new area
+        mDrawable.invalidateSelf();
+        mDrawable.setBounds(left, top, left + bounds.width(), top + bounds.height());
+        mDrawable.invalidateSelf();
+    }
+
+    private static class ImageDrawable extends Drawable {
+        private final Rect mSrcRect = new Rect();
+        private Bitmap mImage;
+
+        public void setImage(Bitmap image, Rect srcRect) {
+            mImage = image;
+
+            if (srcRect != null) {
+                mSrcRect.set(srcRect);
+            } else {
+                mSrcRect.setEmpty();
+            }
+
+            setBounds(0, 0, mSrcRect.width(), mSrcRect.height());
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (mImage == null) {
+                return;
+            }
+
+            // NOTE: the pooled bitmap may be larger than the dragging item image
+            canvas.drawBitmap(mImage, mSrcRect, getBounds(), null);
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter cf) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+    }
+}
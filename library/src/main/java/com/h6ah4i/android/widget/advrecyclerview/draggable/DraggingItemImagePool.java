@@ -0,0 +1,214 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.draggable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Process-wide pool of the bitmaps which are used to draw the dragging item.
+ *
+ * Bitmaps are bucketed by size (rounded up to {@link #SIZE_GRANULARITY} pixels), so a drag of a
+ * similarly sized item can reuse the bitmap of the previous one. Bitmaps which are returned to the
+ * pool are kept until the total size exceeds the memory cap, then the least recently used ones are recycled.
+ */
+public class DraggingItemImagePool {
+    private static final String TAG = "DraggingItemImagePool";
+    private static final boolean LOCAL_LOGD = false;
+
+    /**
+     * Granularity of the bitmap size buckets. [pixels]
+     */
+    public static final int SIZE_GRANULARITY = 64;
+
+    /**
+     * Default memory cap of the pooled bitmaps. [bytes]
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE = 8 * 1024 * 1024;
+
+    private static DraggingItemImagePool sInstance;
+
+    private final LinkedList<Bitmap> mPool = new LinkedList<Bitmap>(); // LRU order (head: most recently used)
+    private Bitmap.Config mBitmapConfig = Bitmap.Config.ARGB_8888;
+    private int mMaxPoolSize = DEFAULT_MAX_POOL_SIZE;
+    private int mCurrentPoolSize;
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Gets the process-wide shared instance.
+     *
+     * @return The shared {@link DraggingItemImagePool} instance
+     */
+    public static synchronized DraggingItemImagePool getInstance() {
+        if (sInstance == null) {
+            sInstance = new DraggingItemImagePool();
+        }
+        return sInstance;
+    }
+
+    /*package*/ DraggingItemImagePool() {
+    }
+
+    /**
+     * Sets the bitmap config of the dragging item image.
+     *
+     * Note that {@link Bitmap.Config#RGB_565} halves the memory usage but the item shadow
+     * is drawn onto an opaque black background.
+     *
+     * @param config {@link Bitmap.Config#ARGB_8888} or {@link Bitmap.Config#RGB_565}
+     */
+    public synchronized void setBitmapConfig(Bitmap.Config config) {
+        if (config != Bitmap.Config.ARGB_8888 && config != Bitmap.Config.RGB_565) {
+            throw new IllegalArgumentException("Unsupported bitmap config: " + config);
+        }
+
+        if (config != mBitmapConfig) {
+            mBitmapConfig = config;
+            trimToSize(0);
+        }
+    }
+
+    public synchronized Bitmap.Config getBitmapConfig() {
+        return mBitmapConfig;
+    }
+
+    /**
+     * Sets the memory cap of the pooled bitmaps.
+     *
+     * @param maxPoolSize Max size in bytes. Specify 0 to disable pooling.
+     */
+    public synchronized void setMaxPoolSize(int maxPoolSize) {
+        if (maxPoolSize < 0) {
+            throw new IllegalArgumentException("maxPoolSize must be >= 0");
+        }
+
+        mMaxPoolSize = maxPoolSize;
+        trimToSize(mMaxPoolSize);
+    }
+
+    public synchronized int getMaxPoolSize() {
+        return mMaxPoolSize;
+    }
+
+    /**
+     * Gets the total size of the bitmaps currently held in this pool.
+     *
+     * @return Size in bytes
+     */
+    public synchronized int getCurrentPoolSize() {
+        return mCurrentPoolSize;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Recycles all pooled bitmaps.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Resets the hit/miss counters.
+     */
+    public synchronized void resetStatistics() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    /*package*/ synchronized Bitmap acquire(int width, int height) {
+        final int bucketWidth = roundUpToBucket(width);
+        final int bucketHeight = roundUpToBucket(height);
+
+        final Iterator<Bitmap> it = mPool.iterator();
+        while (it.hasNext()) {
+            final Bitmap bitmap = it.next();
+
+            if (bitmap.getWidth() == bucketWidth &&
+                    bitmap.getHeight() == bucketHeight &&
+                    bitmap.getConfig() == mBitmapConfig) {
+                it.remove();
+                mCurrentPoolSize -= getBitmapSize(bitmap);
+                mHitCount += 1;
+
+                bitmap.eraseColor(Color.TRANSPARENT);
+
+                if (LOCAL_LOGD) {
+                    Log.d(TAG, "acquire() hit (" + bucketWidth + " x " + bucketHeight + ")");
+                }
+
+                return bitmap;
+            }
+        }
+
+        mMissCount += 1;
+
+        if (LOCAL_LOGD) {
+            Log.d(TAG, "acquire() miss (" + bucketWidth + " x " + bucketHeight + ")");
+        }
+
+        return Bitmap.createBitmap(bucketWidth, bucketHeight, mBitmapConfig);
+    }
+
+    /*package*/ synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+
+        final int size = getBitmapSize(bitmap);
+
+        if (bitmap.getConfig() != mBitmapConfig || size > mMaxPoolSize) {
+            bitmap.recycle();
+            return;
+        }
+
+        mPool.addFirst(bitmap);
+        mCurrentPoolSize += size;
+
+        trimToSize(mMaxPoolSize);
+    }
+
+    private void trimToSize(int maxSize) {
+        while (mCurrentPoolSize > maxSize && !mPool.isEmpty()) {
+            final Bitmap bitmap = mPool.removeLast();
+
+            mCurrentPoolSize -= getBitmapSize(bitmap);
+            bitmap.recycle();
+        }
+    }
+
+    private static int roundUpToBucket(int size) {
+        final int n = Math.max(size, 1);
+        return ((n + SIZE_GRANULARITY - 1) / SIZE_GRANULARITY) * SIZE_GRANULARITY;
+    }
+
+    private static int getBitmapSize(Bitmap bitmap) {
+        // NOTE: Bitmap.getByteCount() is not available on API level 11 or below
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+}
@@ -16,31 +16,69 @@
 
 package com.h6ah4i.android.widget.advrecyclerview.draggable;
 
+import android.content.res.Resources;
 import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.EdgeEffectCompat;
 import android.support.v7.widget.RecyclerView;
 
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
+
 public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
+    private static final int EDGE_TOP = 0;
+    private static final int EDGE_BOTTOM = 1;
+    private static final int EDGE_LEFT = 2;
+    private static final int EDGE_RIGHT = 3;
+
+    // NOTE: Same as the constants of android.widget.EdgeEffect (Lollipop or later)
+    private static final float GLOW_SIN = (float) Math.sin(Math.PI / 6);
+    private static final float GLOW_COS = (float) Math.cos(Math.PI / 6);
+
+    // NOTE: Same as the constant of android.widget.EdgeEffect (before Lollipop)
+    private static final int PRE_LOLLIPOP_MAX_GLOW_SCALE = 4;
+
     private RecyclerView mRecyclerView;
     private EdgeEffectCompat mTopGlow;
     private EdgeEffectCompat mBottomGlow;
+    private EdgeEffectCompat mLeftGlow;
+    private EdgeEffectCompat mRightGlow;
     private boolean mStarted;
+    private Layer mLayer;
+    private int mPreLollipopMaxGlowHeight = -1;
 
     public EdgeEffectDecorator(RecyclerView recyclerView) {
         mRecyclerView = recyclerView;
     }
 
+    /**
+     * Gets the layer of {@link CompositeItemDecoration} which draws the same glows as this decoration.
+     *
+     * @return The layer
+     */
+    public CompositeItemDecoration.Layer asLayer() {
+        if (mLayer == null) {
+            mLayer = new Layer();
+        }
+        return mLayer;
+    }
+
     @Override
     public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
-        boolean needsInvalidate = false;
+        drawGlows(c, parent);
+    }
 
+    private void drawGlows(Canvas c, RecyclerView parent) {
         if (mTopGlow != null && !mTopGlow.isFinished()) {
             final int restore = c.save();
             if (getClipToPadding(parent)) {
                 c.translate(parent.getPaddingLeft(), parent.getPaddingTop());
             }
-            needsInvalidate |= mTopGlow.draw(c);
+            if (mTopGlow.draw(c)) {
+                invalidateGlow(parent, EDGE_TOP);
+            }
             c.restoreToCount(restore);
         }
 
@@ -52,12 +90,38 @@ public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
             } else {
                 c.translate(-parent.getWidth(), -parent.getHeight());
             }
-            needsInvalidate |= mBottomGlow.draw(c);
+            if (mBottomGlow.draw(c)) {
+                invalidateGlow(parent, EDGE_BOTTOM);
+            }
+            c.restoreToCount(restore);
+        }
+
+        if (mLeftGlow != null && !mLeftGlow.isFinished()) {
+            final int restore = c.save();
+            c.rotate(270);
+            if (getClipToPadding(parent)) {
+                c.translate(-parent.getHeight() + parent.getPaddingBottom(), parent.getPaddingLeft());
+            } else {
+                c.translate(-parent.getHeight(), 0);
+            }
+            if (mLeftGlow.draw(c)) {
+                invalidateGlow(parent, EDGE_LEFT);
+            }
             c.restoreToCount(restore);
         }
 
-        if (needsInvalidate) {
-            ViewCompat.postInvalidateOnAnimation(parent);
+        if (mRightGlow != null && !mRightGlow.isFinished()) {
+            final int restore = c.save();
+            c.rotate(90);
+            if (getClipToPadding(parent)) {
+                c.translate(parent.getPaddingTop(), -parent.getWidth() + parent.getPaddingRight());
+            } else {
+                c.translate(0, -parent.getWidth());
+            }
+            if (mRightGlow.draw(c)) {
+                invalidateGlow(parent, EDGE_RIGHT);
+            }
+            c.restoreToCount(restore);
         }
     }
 
@@ -82,7 +146,7 @@ public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
         ensureTopGlow(mRecyclerView);
 
         if (mTopGlow.onPull(deltaDistance)) {
-            ViewCompat.postInvalidateOnAnimation(mRecyclerView);
+            invalidateGlow(mRecyclerView, EDGE_TOP);
         }
     }
 
@@ -91,26 +155,107 @@ public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
         mBottomGlow.onPull(deltaDistance);
 
         if (mBottomGlow.onPull(deltaDistance)) {
-            ViewCompat.postInvalidateOnAnimation(mRecyclerView);
+            invalidateGlow(mRecyclerView, EDGE_BOTTOM);
+        }
+    }
+
+    public void pullLeftGlow(float deltaDistance) {
+        ensureLeftGlow(mRecyclerView);
+
+        if (mLeftGlow.onPull(deltaDistance)) {
+            invalidateGlow(mRecyclerView, EDGE_LEFT);
+        }
+    }
+
+    public void pullRightGlow(float deltaDistance) {
+        ensureRightGlow(mRecyclerView);
+
+        if (mRightGlow.onPull(deltaDistance)) {
+            invalidateGlow(mRecyclerView, EDGE_RIGHT);
         }
     }
 
     public void releaseBothGlows() {
-        boolean needsInvalidate = false;
+        if (mTopGlow != null && mTopGlow.onRelease()) {
+            invalidateGlow(mRecyclerView, EDGE_TOP);
+        }
 
-        if (mTopGlow != null) {
-            needsInvalidate |= mTopGlow.onRelease();
+        if (mBottomGlow != null && mBottomGlow.onRelease()) {
+            invalidateGlow(mRecyclerView, EDGE_BOTTOM);
         }
 
-        if (mBottomGlow != null) {
-            needsInvalidate |= mBottomGlow.onRelease();
+        if (mLeftGlow != null && mLeftGlow.onRelease()) {
+            invalidateGlow(mRecyclerView, EDGE_LEFT);
         }
 
-        if (needsInvalidate) {
-            ViewCompat.postInvalidateOnAnimation(mRecyclerView);
+        if (mRightGlow != null && mRightGlow.onRelease()) {
+            invalidateGlow(mRecyclerView, EDGE_RIGHT);
         }
     }
 
+    private void invalidateGlow(RecyclerView rv, int edge) {
+        // NOTE: Each glow is drawn within a band along its edge, which is not thicker than the maximum glow height.
+        // So the band covers both of the previously drawn area and the new one.
+        final boolean clipToPadding = getClipToPadding(rv);
+        final int left = (clipToPadding) ? rv.getPaddingLeft() : 0;
+        final int top = (clipToPadding) ? rv.getPaddingTop() : 0;
+        final int right = rv.getWidth() - ((clipToPadding) ? rv.getPaddingRight() : 0);
+        final int bottom = rv.getHeight() - ((clipToPadding) ? rv.getPaddingBottom() : 0);
+
+        switch (edge) {
+            case EDGE_TOP: {
+                final int thickness = getMaxGlowHeight(rv, right - left);
+                ViewCompat.postInvalidateOnAnimation(rv, left, top, right, Math.min(top + thickness, bottom));
+                break;
+            }
+            case EDGE_BOTTOM: {
+                final int thickness = getMaxGlowHeight(rv, right - left);
+                ViewCompat.postInvalidateOnAnimation(rv, left, Math.max(bottom - thickness, top), right, bottom);
+                break;
+            }
+            case EDGE_LEFT: {
+                final int thickness = getMaxGlowHeight(rv, bottom - top);
+                ViewCompat.postInvalidateOnAnimation(rv, left, top, Math.min(left + thickness, right), bottom);
+                break;
+            }
+            case EDGE_RIGHT: {
+                final int thickness = getMaxGlowHeight(rv, bottom - top);
+                ViewCompat.postInvalidateOnAnimation(rv, Math.max(right - thickness, left), top, right, bottom);
+                break;
+            }
+        }
+    }
+
+    private int getMaxGlowHeight(RecyclerView rv, int edgeLength) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            // the glow is a segment of the circle, the chord is 1.5x as long as the edge
+            final float r = edgeLength * 0.75f / GLOW_SIN;
+            return (int) Math.ceil(r - r * GLOW_COS);
+        }
+
+        if (mPreLollipopMaxGlowHeight < 0) {
+            mPreLollipopMaxGlowHeight = computePreLollipopMaxGlowHeight(rv.getResources());
+        }
+
+        return mPreLollipopMaxGlowHeight;
+    }
+
+    private static int computePreLollipopMaxGlowHeight(Resources res) {
+        // the glow drawable is stretched up to 4x, and the edge drawable is not stretched
+        final int glowId = res.getIdentifier("overscroll_glow", "drawable", "android");
+        final int edgeId = res.getIdentifier("overscroll_edge", "drawable", "android");
+
+        if (glowId == 0 || edgeId == 0) {
+            // unknown, invalidate the whole area
+            return Integer.MAX_VALUE;
+        }
+
+        final Drawable glow = res.getDrawable(glowId);
+        final Drawable edge = res.getDrawable(edgeId);
+
+        return Math.max(glow.getIntrinsicHeight() * PRE_LOLLIPOP_MAX_GLOW_SCALE, edge.getIntrinsicHeight());
+    }
+
     private void ensureTopGlow(RecyclerView rv) {
         if (mTopGlow != null) {
             return;
@@ -139,6 +284,33 @@ public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
         }
     }
 
+    private void ensureLeftGlow(RecyclerView rv) {
+        if (mLeftGlow != null) {
+            return;
+        }
+        mLeftGlow = new EdgeEffectCompat(rv.getContext());
+        setHorizontalGlowSize(rv, mLeftGlow);
+    }
+
+    private void ensureRightGlow(RecyclerView rv) {
+        if (mRightGlow != null) {
+            return;
+        }
+        mRightGlow = new EdgeEffectCompat(rv.getContext());
+        setHorizontalGlowSize(rv, mRightGlow);
+    }
+
+    private static void setHorizontalGlowSize(RecyclerView rv, EdgeEffectCompat glow) {
+        // NOTE: horizontal glows are drawn on the rotated canvas
+        if (getClipToPadding(rv)) {
+            glow.setSize(
+                    rv.getMeasuredHeight() - rv.getPaddingTop() - rv.getPaddingBottom(),
+                    rv.getMeasuredWidth() - rv.getPaddingLeft() - rv.getPaddingRight());
+        } else {
+            glow.setSize(rv.getMeasuredHeight(), rv.getMeasuredWidth());
+        }
+    }
+
     private static boolean getClipToPadding(RecyclerView rv) {
         return rv.getLayoutManager().getClipToPadding();
     }
@@ -149,4 +321,11 @@ public class EdgeEffectDecorator extends RecyclerView.ItemDecoration {
             mRecyclerView.addItemDecoration(this);
         }
     }
+
+    private class Layer extends CompositeItemDecoration.Layer {
+        @Override
+        public void onDrawOver(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
+            drawGlows(c, parent);
+        }
+    }
 }
@@ -25,10 +25,15 @@ import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.ViewConfiguration;
+import android.view.ViewTreeObserver;
 import android.view.animation.Interpolator;
 
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
 import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+import com.h6ah4i.android.widget.advrecyclerview.utils.FrameCallbackCompat;
+import com.h6ah4i.android.widget.advrecyclerview.utils.RecyclerViewGestureDispatcher;
+import com.h6ah4i.android.widget.advrecyclerview.utils.TouchPositionPredictor;
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
 import com.h6ah4i.android.widget.advrecyclerview.utils.WrapperAdapterUtils;
 
 import java.lang.ref.WeakReference;
@@ -45,27 +50,30 @@ public class RecyclerViewDragDropManager {
     private static final boolean LOCAL_LOGD = false;
 
     private static final float SCROLL_THRESHOLD = 0.3f; // 0.0f < X < 0.5f
-    private static final float SCROLL_AMOUNT_COEFF = 25;
     private static final float EDGE_EFFECT_THRESHOLD = 0.5f; // <= 1.0f
+    private static final float EDGE_EFFECT_PULL_AMOUNT_PER_SECOND = 1.5f;
+    private static final float MAX_TOUCH_PREDICTION_DISTANCE_DP = 32.0f; // [dp]
+    private static final float DEFAULT_DRAGGING_ITEM_ELEVATION = 8.0f; // [dp]
 
     private RecyclerView mRecyclerView;
     private Interpolator mSwapTargetTranslationInterpolator;
     private ScrollOnDraggingProcessRunnable mScrollOnDraggingProcess;
+    private AutoScrollEngine mAutoScrollEngine;
 
     private RecyclerView.OnScrollListener mUserOnScrollListener;
-    private RecyclerView.OnItemTouchListener mInternalUseOnItemTouchListener;
+    private RecyclerViewGestureDispatcher.GestureHandler mInternalUseGestureHandler;
     private RecyclerView.OnScrollListener mInternalUseOnScrollListener;
 
+    private CompositeItemDecoration mDecoration;
     private EdgeEffectDecorator mEdgeEffectDecorator;
     private NinePatchDrawable mShadowDrawable;
+    private float mDraggingItemElevation = -1.0f;
 
     private float mDisplayDensity;
-    private int mTouchSlop;
+    private int mInitialTouchX;
     private int mInitialTouchY;
     private long mInitialTouchItemId = RecyclerView.NO_ID;
 
-    private boolean mInScrollByMethod;
-    private int mActualScrollByAmount;
 
     private Rect mTmpRect1 = new Rect();
 
@@ -76,22 +84,58 @@ public class RecyclerViewDragDropManager {
     private Rect mDraggingItemMargins = new Rect();
     private DraggingItemDecorator mDraggingItemDecorator;
     private SwapTargetItemOperator mSwapTargetItemOperator;
+    private VisibleItemSpatialIndex mVisibleItemSpatialIndex = new VisibleItemSpatialIndex();
+    private VisibleChildrenSnapshot mChildrenSnapshot = new VisibleChildrenSnapshot();
+    private ViewTreeObserver mViewTreeObserver;
+    private final ViewTreeObserver.OnPreDrawListener mPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            // NOTE: the children may have been laid out, re-capture them at the next access
+            mChildrenSnapshot.invalidate();
+            return true;
+        }
+    };
+    private int mLayoutType = CustomRecyclerViewUtils.LAYOUT_TYPE_UNKNOWN;
+    private int mOrientation = CustomRecyclerViewUtils.ORIENTATION_UNKNOWN;
+    private int mLastTouchX;
     private int mLastTouchY;
+    private boolean mTouchMoveCoalescingEnabled = false;
+    private boolean mPendingTouchMove;
+    private TouchPositionPredictor mTouchPositionPredictor = new TouchPositionPredictor();
+    private int mGrabbedPositionX;
     private int mGrabbedPositionY;
+    private int mGrabbedItemWidth;
     private int mGrabbedItemHeight;
     private int mOrigOverScrollMode;
-    private Runnable mDeferredCancelProcess;
+    private final Runnable mDeferredCancelProcess = new Runnable() {
+        @Override
+        public void run() {
+            if (mDeferredCancelPending) {
+                mDeferredCancelPending = false;
+                finishDragging(false);
+            }
+        }
+    };
+    private boolean mDeferredCancelPending;
+    private int mAutoScrollDirection;
+    private long mAutoScrollEdgeZoneEnteredTime;
+    private float mAutoScrollRemainder;
 
     public RecyclerViewDragDropManager() {
-        mInternalUseOnItemTouchListener = new RecyclerView.OnItemTouchListener() {
+        mInternalUseGestureHandler = new RecyclerViewGestureDispatcher.GestureHandler() {
+            @Override
+            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                return RecyclerViewDragDropManager.this.onInterceptTouchEvent(rv, e, info);
+            }
+
             @Override
-            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
-                return RecyclerViewDragDropManager.this.onInterceptTouchEvent(rv, e);
+            public void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                RecyclerViewDragDropManager.this.onTouchEvent(rv, e, info);
             }
 
             @Override
-            public void onTouchEvent(RecyclerView rv, MotionEvent e) {
-                RecyclerViewDragDropManager.this.onTouchEvent(rv, e);
+            public void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+                RecyclerViewDragDropManager.this.onGestureInterceptedByOtherHandler(rv);
             }
         };
 
@@ -108,6 +152,7 @@ public class RecyclerViewDragDropManager {
         };
 
         mScrollOnDraggingProcess = new ScrollOnDraggingProcessRunnable(this);
+        mAutoScrollEngine = new BasicAutoScrollEngine();
     }
 
     public RecyclerView.Adapter createWrappedAdapter(RecyclerView.Adapter adapter) {
@@ -121,7 +166,7 @@ public class RecyclerViewDragDropManager {
     }
 
     public boolean isReleased() {
-        return (mInternalUseOnItemTouchListener == null);
+        return (mInternalUseGestureHandler == null);
     }
 
     public void attachRecyclerView(RecyclerView rv) {
@@ -142,16 +187,32 @@ public class RecyclerViewDragDropManager {
         }
 
         mRecyclerView = rv;
-        mRecyclerView.addOnItemTouchListener(mInternalUseOnItemTouchListener);
+        RecyclerViewGestureDispatcher.addGestureHandler(
+                mRecyclerView, mInternalUseGestureHandler, RecyclerViewGestureDispatcher.PRIORITY_DRAG_AND_DROP);
         mRecyclerView.setOnScrollListener(mInternalUseOnScrollListener);
         mDisplayDensity = mRecyclerView.getResources().getDisplayMetrics().density;
-        mTouchSlop = ViewConfiguration.get(mRecyclerView.getContext()).getScaledTouchSlop();
+        mTouchPositionPredictor.setMaxDistance(MAX_TOUCH_PREDICTION_DISTANCE_DP * mDisplayDensity);
+
+        // NOTE:
+        // The dragging item and the edge glows are drawn by the layers of this decoration.
+        // They are installed only once here because adding/removing item decorations causes a layout pass.
+        mDecoration = new CompositeItemDecoration();
+
+        mDraggingItemDecorator = new DraggingItemDecorator(mRecyclerView, mChildrenSnapshot);
+        mDecoration.addLayer(mDraggingItemDecorator); // below the edge glows
+
+        // NOTE: reused for every drag to avoid allocations when a drag starts
+        if (supportsViewTranslation()) {
+            mSwapTargetItemOperator = new SwapTargetItemOperator(mRecyclerView, mChildrenSnapshot);
+        }
 
         if (supportsEdgeEffect()) {
             // edge effect is available on ICS or later
             mEdgeEffectDecorator = new EdgeEffectDecorator(mRecyclerView);
-            mEdgeEffectDecorator.start();
+            mDecoration.addLayer(mEdgeEffectDecorator.asLayer());
         }
+
+        mRecyclerView.addItemDecoration(mDecoration);
     }
 
     public void release() {
@@ -162,10 +223,15 @@ public class RecyclerViewDragDropManager {
             mEdgeEffectDecorator = null;
         }
 
-        if (mRecyclerView != null && mInternalUseOnItemTouchListener != null) {
-            mRecyclerView.removeOnItemTouchListener(mInternalUseOnItemTouchListener);
+        if (mRecyclerView != null && mDecoration != null) {
+            mRecyclerView.removeItemDecoration(mDecoration);
+        }
+        mDecoration = null;
+
+        if (mRecyclerView != null && mInternalUseGestureHandler != null) {
+            RecyclerViewGestureDispatcher.removeGestureHandler(mRecyclerView, mInternalUseGestureHandler);
         }
-        mInternalUseOnItemTouchListener = null;
+        mInternalUseGestureHandler = null;
 
         if (mRecyclerView != null && mInternalUseOnScrollListener != null) {
             mRecyclerView.setOnScrollListener(null);
@@ -179,17 +245,34 @@ public class RecyclerViewDragDropManager {
         mUserOnScrollListener = null;
         mAdapter = null;
         mRecyclerView = null;
+        mSwapTargetItemOperator = null;
         mSwapTargetTranslationInterpolator = null;
     }
 
     public boolean isDragging() {
-        return (mDraggingItem != null) && (mDeferredCancelProcess == null);
+        return (mDraggingItem != null) && !mDeferredCancelPending;
     }
 
     public void setDraggingItemShadowDrawable(NinePatchDrawable drawable) {
         mShadowDrawable = drawable;
     }
 
+    /**
+     * Sets the elevation of the dragging item. (Lollipop or later)
+     *
+     * On Lollipop or later, the dragging item view itself is raised by this amount with translationZ
+     * and the shadow drawable is not used. On older platforms, a snapshot image of the item is drawn instead.
+     *
+     * @param elevation Elevation in pixels. Specify a negative value to use the default elevation.
+     */
+    public void setDraggingItemElevation(float elevation) {
+        mDraggingItemElevation = elevation;
+    }
+
+    public float getDraggingItemElevation() {
+        return mDraggingItemElevation;
+    }
+
     public void setOnScrollListener(RecyclerView.OnScrollListener listener) {
         mUserOnScrollListener = listener;
     }
@@ -202,7 +285,59 @@ public class RecyclerViewDragDropManager {
         return mSwapTargetTranslationInterpolator;
     }
 
-    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+    /**
+     * Sets the engine which determines the auto scroll speed while dragging.
+     *
+     * @param engine The auto scroll engine. Specify null to use {@link BasicAutoScrollEngine}.
+     */
+    public void setAutoScrollEngine(AutoScrollEngine engine) {
+        mAutoScrollEngine = (engine != null) ? engine : new BasicAutoScrollEngine();
+    }
+
+    public AutoScrollEngine getAutoScrollEngine() {
+        return mAutoScrollEngine;
+    }
+
+    /**
+     * Sets whether to coalesce the touch move events while dragging.
+     *
+     * If enabled, only the latest touch position is stored on each ACTION_MOVE event and the dragging item,
+     * the swap target items and item swapping are updated once per frame.
+     *
+     * NOTE: This is disabled by default (opt-in). The item follows the touch position up to one frame later while
+     * this is enabled, so enable it only if the ACTION_MOVE events are delivered more often than the frames.
+     *
+     * @param enabled Whether the touch move coalescing is enabled (default: false)
+     */
+    public void setTouchMoveCoalescingEnabled(boolean enabled) {
+        if (!enabled) {
+            flushPendingTouchMove();
+        }
+        mTouchMoveCoalescingEnabled = enabled;
+    }
+
+    public boolean isTouchMoveCoalescingEnabled() {
+        return mTouchMoveCoalescingEnabled;
+    }
+
+    /**
+     * Sets how far ahead the position of the dragging item is predicted from the recent touch samples.
+     *
+     * The predicted position is used only for drawing the dragging item, item swapping is decided by
+     * the actual touch position.
+     *
+     * @param horizon Prediction horizon in milliseconds. Specify 0 to disable the prediction. (default: 0)
+     * @see TouchPositionPredictor#MAX_PREDICTION_HORIZON
+     */
+    public void setTouchPredictionHorizon(long horizon) {
+        mTouchPositionPredictor.setHorizon(horizon);
+    }
+
+    public long getTouchPredictionHorizon() {
+        return mTouchPositionPredictor.getHorizon();
+    }
+
+    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         final int action = MotionEventCompat.getActionMasked(e);
 
         if (LOCAL_LOGV) {
@@ -217,7 +352,7 @@ public class RecyclerViewDragDropManager {
 
             case MotionEvent.ACTION_DOWN:
                 if (!isDragging()) {
-                    handleActionDown(rv, e);
+                    handleActionDown(rv, info);
                 }
                 break;
 
@@ -227,7 +362,7 @@ public class RecyclerViewDragDropManager {
                     handleActionMoveWhileDragging(rv, e);
                     return true;
                 } else {
-                    if (handleActionMoveWhileNotDragging(rv, e)) {
+                    if (handleActionMoveWhileNotDragging(rv, e, info)) {
                         return true;
                     }
                 }
@@ -236,7 +371,7 @@ public class RecyclerViewDragDropManager {
         return false;
     }
 
-    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e) {
+    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         final int action = MotionEventCompat.getActionMasked(e);
 
         if (LOCAL_LOGV) {
@@ -261,14 +396,21 @@ public class RecyclerViewDragDropManager {
         }
     }
 
+    /*package*/ void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+        if (isDragging()) {
+            return;
+        }
+
+        // NOTE: the ACTION_UP / ACTION_CANCEL event of this gesture won't be delivered to this manager
+        mInitialTouchItemId = RecyclerView.NO_ID;
+    }
+
     /*package*/ void onScrolled(RecyclerView recyclerView, int dx, int dy) {
         if (LOCAL_LOGV) {
             Log.v(TAG, "onScrolled(dx = " + dx + ", dy = " + dy + ")");
         }
 
-        if (mInScrollByMethod) {
-            mActualScrollByAmount = dy;
-        }
+        mChildrenSnapshot.invalidate();
 
         if (mUserOnScrollListener != null) {
             mUserOnScrollListener.onScrolled(recyclerView, dx, dy);
@@ -285,14 +427,15 @@ public class RecyclerViewDragDropManager {
         }
     }
 
-    private boolean handleActionDown(RecyclerView rv, MotionEvent e) {
-        final RecyclerView.ViewHolder holder = CustomRecyclerViewUtils.findChildViewHolderUnderWithoutTranslation(rv, e.getX(), e.getY());
+    private boolean handleActionDown(RecyclerView rv, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+        final RecyclerView.ViewHolder holder = info.findChildViewHolderUnder();
 
         if (!checkTouchedItemState(rv, holder)) {
             return false;
         }
 
-        mInitialTouchY = mLastTouchY = (int) (e.getY() + 0.5f);
+        mInitialTouchX = mLastTouchX = info.getX();
+        mInitialTouchY = mLastTouchY = info.getY();
         mInitialTouchItemId = holder.getItemId();
 
         return true;
@@ -301,6 +444,12 @@ public class RecyclerViewDragDropManager {
     private void startDragging(RecyclerView rv, MotionEvent e, RecyclerView.ViewHolder holder) {
         safeEndAnimation(rv, holder);
 
+        // NOTE: this listener has to be registered before the one of SwapTargetItemOperator
+        addPreDrawListener(rv);
+
+        // NOTE: the snapshot is not invalidated while not dragging, so capture the children here
+        mChildrenSnapshot.capture(rv);
+
         mDraggingItem = holder;
 
         // XXX if setIsRecyclable() is used, another view holder objects will be created
@@ -312,39 +461,45 @@ public class RecyclerViewDragDropManager {
 
         final View itemView = mDraggingItem.itemView;
 
+        mLayoutType = CustomRecyclerViewUtils.getLayoutType(rv);
+        mOrientation = CustomRecyclerViewUtils.getOrientation(rv);
+
         mOrigOverScrollMode = ViewCompat.getOverScrollMode(rv);
         ViewCompat.setOverScrollMode(rv, ViewCompat.OVER_SCROLL_NEVER);
 
+        mLastTouchX = (int) (e.getX() + 0.5f);
         mLastTouchY = (int) (e.getY() + 0.5f);
 
+        mTouchPositionPredictor.reset();
+        mTouchPositionPredictor.addMovement(e);
+
         // calculate the view-local offset from the touched point
+        mGrabbedPositionX = mLastTouchX - itemView.getLeft();
         mGrabbedPositionY = mLastTouchY - itemView.getTop();
 
+        mGrabbedItemWidth = itemView.getWidth();
         mGrabbedItemHeight = itemView.getHeight();
         CustomRecyclerViewUtils.getLayoutMargins(itemView, mDraggingItemMargins);
 
         startScrollOnDraggingProcess();
 
         // raise onDragItemStarted() event
+        // (drag state flags of the attached items are also updated here)
         mAdapter.onDragItemStarted(mDraggingItem);
 
         // setup decorators
-        mAdapter.onBindViewHolder(mDraggingItem, mDraggingItem.getPosition());
-
-        mDraggingItemDecorator = new DraggingItemDecorator(mRecyclerView, mDraggingItem);
         mDraggingItemDecorator.setShadowDrawable(mShadowDrawable);
-        mDraggingItemDecorator.start(e, mGrabbedPositionY);
+        mDraggingItemDecorator.setDraggingItemElevation(getEffectiveDraggingItemElevation());
+        mDraggingItemDecorator.start(mDraggingItem, e, mGrabbedPositionX, mGrabbedPositionY);
 
-        if (supportsViewTranslation()) {
-            mSwapTargetItemOperator = new SwapTargetItemOperator(mRecyclerView, mDraggingItem);
+        // NOTE: In grid layouts, the swapped items are moved by the item animator instead
+        if (mSwapTargetItemOperator != null && CustomRecyclerViewUtils.isLinearLikeLayout(mLayoutType)) {
+            mSwapTargetItemOperator.prepare(mDraggingItem);
             mSwapTargetItemOperator.setSwapTargetTranslationInterpolator(mSwapTargetTranslationInterpolator);
             mSwapTargetItemOperator.start();
-            mSwapTargetItemOperator.update(mDraggingItemDecorator.getDraggingItemTranslationY());
+            updateSwapTargetItemOperator();
         }
 
-        if (mEdgeEffectDecorator != null) {
-            mEdgeEffectDecorator.reorderToTop();
-        }
     }
 
     public void cancelDrag() {
@@ -356,16 +511,8 @@ public class RecyclerViewDragDropManager {
             finishDragging(false);
         } else {
             if (mDraggingItem != null) {
-                if (mDeferredCancelProcess == null) {
-                    mDeferredCancelProcess = new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mDeferredCancelProcess == this) {
-                                mDeferredCancelProcess = null;
-                                finishDragging(false);
-                            }
-                        }
-                    };
+                if (!mDeferredCancelPending) {
+                    mDeferredCancelPending = true;
                     ViewCompat.postOnAnimation(mRecyclerView, mDeferredCancelProcess);
                 }
             }
@@ -386,7 +533,11 @@ public class RecyclerViewDragDropManager {
         }
 
         if (mSwapTargetItemOperator != null) {
-            mSwapTargetItemOperator.finish();
+            if (mSwapTargetItemOperator.isStarted()) {
+                mSwapTargetItemOperator.finish();
+            } else {
+                mSwapTargetItemOperator.cancelPreparation();
+            }
         }
 
         if (mEdgeEffectDecorator != null) {
@@ -394,15 +545,33 @@ public class RecyclerViewDragDropManager {
         }
 
         stopScrollOnDraggingProcess();
+        removePreDrawListener();
+
+        if (mDeferredCancelPending) {
+            mDeferredCancelPending = false;
+            if (mRecyclerView != null) {
+                mRecyclerView.removeCallbacks(mDeferredCancelProcess);
+            }
+        }
 
-        mDraggingItemDecorator = null;
-        mSwapTargetItemOperator = null;
         mDraggingItem = null;
         mDraggingItemId = RecyclerView.NO_ID;
 
+        mLastTouchX = 0;
         mLastTouchY = 0;
+        mPendingTouchMove = false;
+        mTouchPositionPredictor.reset();
+        mGrabbedPositionX = 0;
         mGrabbedPositionY = 0;
+        mGrabbedItemWidth = 0;
         mGrabbedItemHeight = 0;
+        mVisibleItemSpatialIndex.clear();
+        mChildrenSnapshot.clear();
+        mLayoutType = CustomRecyclerViewUtils.LAYOUT_TYPE_UNKNOWN;
+        mOrientation = CustomRecyclerViewUtils.ORIENTATION_UNKNOWN;
+        mAutoScrollDirection = 0;
+        mAutoScrollEdgeZoneEnteredTime = 0;
+        mAutoScrollRemainder = 0.0f;
 
         // raise onDragItemFinished() event
         if ((mAdapter != null) && (draggedItem != null)) {
@@ -417,7 +586,14 @@ public class RecyclerViewDragDropManager {
     private boolean handleActionUpOrCancel(RecyclerView rv, MotionEvent e) {
         final boolean result = (MotionEventCompat.getActionMasked(e) == MotionEvent.ACTION_UP);
 
+        if (isDragging()) {
+            // apply the last move before dropping the item
+            flushPendingTouchMove();
+        }
+
+        mInitialTouchX = 0;
         mInitialTouchY = 0;
+        mLastTouchX = 0;
         mLastTouchY = 0;
         mInitialTouchItemId = RecyclerView.NO_ID;
 
@@ -432,21 +608,22 @@ public class RecyclerViewDragDropManager {
         return true;
     }
 
-    private boolean handleActionMoveWhileNotDragging(RecyclerView rv, MotionEvent e) {
-        final int touchX = (int) (e.getX() + 0.5f);
-        final int touchY = (int) (e.getY() + 0.5f);
+    private boolean handleActionMoveWhileNotDragging(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+        final int touchX = info.getX();
+        final int touchY = info.getY();
 
+        mLastTouchX = touchX;
         mLastTouchY = touchY;
 
         if (mInitialTouchItemId == RecyclerView.NO_ID) {
             return false;
         }
 
-        if (!(Math.abs(touchY - mInitialTouchY) > mTouchSlop)) {
+        if (!checkTouchSlop(rv, info)) {
             return false;
         }
 
-        final RecyclerView.ViewHolder holder = CustomRecyclerViewUtils.findChildViewHolderUnderWithoutTranslation(rv, e.getX(), e.getY());
+        final RecyclerView.ViewHolder holder = info.findChildViewHolderUnder();
 
         if (!checkTouchedItemState(rv, holder)) {
             mInitialTouchItemId = RecyclerView.NO_ID;
@@ -478,70 +655,179 @@ public class RecyclerViewDragDropManager {
 
     }
 
+    private boolean checkTouchSlop(RecyclerView rv, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+        final int layoutType = CustomRecyclerViewUtils.getLayoutType(rv);
+
+        if (!CustomRecyclerViewUtils.isLinearLikeLayout(layoutType)) {
+            // grid layouts can be dragged to any direction
+            return info.exceedsTouchSlopX() || info.exceedsTouchSlopY();
+        } else if (CustomRecyclerViewUtils.getOrientation(rv) == CustomRecyclerViewUtils.ORIENTATION_HORIZONTAL) {
+            return info.exceedsTouchSlopX();
+        } else {
+            return info.exceedsTouchSlopY();
+        }
+    }
+
     private void handleActionMoveWhileDragging(RecyclerView rv, MotionEvent e) {
+        mLastTouchX = (int) (e.getX() + 0.5f);
         mLastTouchY = (int) (e.getY() + 0.5f);
+        mTouchPositionPredictor.addMovement(e);
 
-        // update decorators
-        mDraggingItemDecorator.update(e);
-        if (mSwapTargetItemOperator != null) {
-            mSwapTargetItemOperator.update(mDraggingItemDecorator.getDraggingItemTranslationY());
+        if (mTouchMoveCoalescingEnabled) {
+            // NOTE: processed by handleScrollOnDragging() at the next frame
+            mPendingTouchMove = true;
+            return;
         }
 
+        processTouchMove(rv);
+    }
+
+    private void processTouchMove(RecyclerView rv) {
+        mPendingTouchMove = false;
+
+        // update decorators
+        updateDraggingItemDecorator();
+        updateSwapTargetItemOperator();
+
         // check swapping
         checkItemSwapping(rv);
     }
 
+    private void flushPendingTouchMove() {
+        if (mPendingTouchMove && isDragging()) {
+            processTouchMove(mRecyclerView);
+        }
+        mPendingTouchMove = false;
+    }
+
+    private void updateDraggingItemDecorator() {
+        if (mTouchPositionPredictor.isEnabled() && mTouchPositionPredictor.predict()) {
+            mDraggingItemDecorator.update(
+                    mTouchPositionPredictor.getPredictedX(),
+                    mTouchPositionPredictor.getPredictedY());
+        } else {
+            mDraggingItemDecorator.update(mLastTouchX, mLastTouchY);
+        }
+    }
+
+    private void updateSwapTargetItemOperator() {
+        if (mSwapTargetItemOperator != null && mSwapTargetItemOperator.isStarted()) {
+            mSwapTargetItemOperator.update(
+                    mDraggingItemDecorator.getDraggingItemTranslationX(),
+                    mDraggingItemDecorator.getDraggingItemTranslationY());
+        }
+    }
+
     private void checkItemSwapping(RecyclerView rv) {
         final RecyclerView.ViewHolder draggingItem = mDraggingItem;
 
+        final int overlayItemLeft = mLastTouchX - mGrabbedPositionX;
         final int overlayItemTop = mLastTouchY - mGrabbedPositionY;
-        final RecyclerView.ViewHolder swapTargetHolder = findSwapTargetItem(rv, draggingItem, mDraggingItemId, overlayItemTop);
+        final VisibleChildrenSnapshot children = mChildrenSnapshot;
+        RecyclerView.ViewHolder swapTargetHolder;
+
+        children.ensureCaptured(rv);
+
+        if (CustomRecyclerViewUtils.isLinearLikeLayout(mLayoutType)) {
+            final boolean horizontal = isHorizontalLayout();
+            final int overlayItemStart = (horizontal) ? overlayItemLeft : overlayItemTop;
+
+            swapTargetHolder = null;
+
+            // NOTE: try to jump to the final target position directly (avoids one swap & layout pass per item)
+            // (only if the children are ordered by their positions, unknown layouts are swapped with adjacent items only)
+            if (CustomRecyclerViewUtils.isLinearLayout(mLayoutType) &&
+                    CustomRecyclerViewUtils.isOrderedLayout(rv, mLayoutType)) {
+                swapTargetHolder = findDistantSwapTargetItem(rv, children, draggingItem, mDraggingItemId, overlayItemStart);
+            }
+
+            if (swapTargetHolder == null) {
+                swapTargetHolder = findSwapTargetItem(rv, children, draggingItem, mDraggingItemId, overlayItemStart, horizontal);
+            }
+        } else {
+            swapTargetHolder = findSwapTargetItemInGrid(children, draggingItem, mDraggingItemId, overlayItemLeft, overlayItemTop);
+        }
 
         if ((swapTargetHolder != null) && (swapTargetHolder != mDraggingItem)) {
             swapItems(rv, draggingItem, swapTargetHolder);
         }
     }
 
-    /*package*/ void handleScrollOnDragging() {
+    /*package*/ void handleScrollOnDragging(long frameTime, long frameInterval) {
         final RecyclerView rv = mRecyclerView;
-        final int height = rv.getHeight();
+        final boolean horizontal = isHorizontalLayout();
+        final int size = (horizontal) ? rv.getWidth() : rv.getHeight();
+
+        if (mPendingTouchMove) {
+            // NOTE: item swapping is checked at the end of this method
+            mPendingTouchMove = false;
+            updateDraggingItemDecorator();
+            updateSwapTargetItemOperator();
+        }
 
-        if (height == 0) {
+        if (size == 0) {
             return;
         }
 
-        final float y = mLastTouchY * (1.0f / height);
+        final float pos = ((horizontal) ? mLastTouchX : mLastTouchY) * (1.0f / size);
         final float threshold = SCROLL_THRESHOLD;
         final float invThreshold = (1.0f / threshold);
-        final float centerOffset = y - 0.5f;
+        final float centerOffset = pos - 0.5f;
         final float absCenterOffset = Math.abs(centerOffset);
         final float acceleration = Math.max(0.0f, threshold - (0.5f - absCenterOffset)) * invThreshold;
-        final int scrollAmount = (int) Math.signum(centerOffset) * (int) (SCROLL_AMOUNT_COEFF * mDisplayDensity * acceleration + 0.5f);
-        int actualScrolledAmount = 0;
+        final int direction = (acceleration > 0.0f) ? (int) Math.signum(centerOffset) : 0;
+
+        // track the dwell time in the edge zone
+        if (direction != mAutoScrollDirection) {
+            mAutoScrollDirection = direction;
+            mAutoScrollEdgeZoneEnteredTime = frameTime;
+            mAutoScrollRemainder = 0.0f;
+        }
+
+        // NOTE: ask the layout manager instead of calling scrollBy() to detect over scrolling
+        final boolean canScroll = (direction != 0) && canScroll(rv, direction, horizontal);
+        int scrollAmount = 0;
+
+        if (canScroll) {
+            final long dwellTime = frameTime - mAutoScrollEdgeZoneEnteredTime;
+            final float speed = mAutoScrollEngine.getScrollSpeed(acceleration, dwellTime, mDisplayDensity); // [px/s]
+            final float amount = speed * frameInterval * 0.001f + mAutoScrollRemainder;
+
+            scrollAmount = direction * (int) amount;
+            mAutoScrollRemainder = amount - (int) amount;
+        } else {
+            mAutoScrollRemainder = 0.0f;
+        }
 
-        mDraggingItemDecorator.setIsScrolling(scrollAmount != 0);
+        mDraggingItemDecorator.setIsScrolling(canScroll);
 
         if (scrollAmount != 0) {
             safeEndAnimations(rv);
-            actualScrolledAmount = scrollByYAndGetScrolledAmount(scrollAmount);
+            scrollBy(rv, scrollAmount, horizontal);
 
             mDraggingItemDecorator.refresh();
-            if (mSwapTargetItemOperator != null) {
-                mSwapTargetItemOperator.update(mDraggingItemDecorator.getDraggingItemTranslationY());
-            }
+            updateSwapTargetItemOperator();
         }
 
         if (mEdgeEffectDecorator != null) {
-            if ((acceleration >= EDGE_EFFECT_THRESHOLD) && (scrollAmount != 0) && (actualScrolledAmount == 0)) {
+            if ((acceleration >= EDGE_EFFECT_THRESHOLD) && (direction != 0) && !canScroll) {
                 // over scrolled
-                final float distance = acceleration * 0.025f;
+                final float distance = acceleration * EDGE_EFFECT_PULL_AMOUNT_PER_SECOND * frameInterval * 0.001f;
 
-                if (scrollAmount < 0) {
-                    // upward
-                    mEdgeEffectDecorator.pullTopGlow(distance);
+                if (horizontal) {
+                    if (direction < 0) {
+                        mEdgeEffectDecorator.pullLeftGlow(distance);
+                    } else {
+                        mEdgeEffectDecorator.pullRightGlow(distance);
+                    }
                 } else {
-                    // downward
-                    mEdgeEffectDecorator.pullBottom(distance);
+                    if (direction < 0) {
+                        // upward
+                        mEdgeEffectDecorator.pullTopGlow(distance);
+                    } else {
+                        // downward
+                        mEdgeEffectDecorator.pullBottom(distance);
+                    }
                 }
             } else {
                 mEdgeEffectDecorator.releaseBothGlows();
@@ -551,15 +837,83 @@ public class RecyclerViewDragDropManager {
         checkItemSwapping(rv);
     }
 
-    private int scrollByYAndGetScrolledAmount(int ry) {
-        // NOTE: mActualScrollByAmount --- Hackish! To detect over scrolling.
+    private static boolean canScroll(RecyclerView rv, int direction, boolean horizontal) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            // NOTE: ViewCompat.canScrollHorizontally/Vertically() always return false on the platforms prior to ICS
+            return canScrollByLayoutManager(rv, direction, horizontal);
+        }
+
+        return (horizontal)
+                ? ViewCompat.canScrollHorizontally(rv, direction)
+                : ViewCompat.canScrollVertically(rv, direction);
+    }
+
+    private static boolean canScrollByLayoutManager(RecyclerView rv, int direction, boolean horizontal) {
+        final RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+
+        if (layoutManager == null) {
+            return false;
+        }
+
+        if (!((horizontal) ? layoutManager.canScrollHorizontally() : layoutManager.canScrollVertically())) {
+            return false;
+        }
+
+        final int childCount = layoutManager.getChildCount();
+        final int itemCount = layoutManager.getItemCount();
+
+        if (childCount == 0 || itemCount == 0) {
+            return false;
+        }
+
+        // the adapter position of the item which is placed at the edge of the scrolling direction
+        final boolean reverse = CustomRecyclerViewUtils.isReverseLayout(layoutManager);
+        final int edgePosition = ((direction < 0) != reverse) ? 0 : (itemCount - 1);
+        final int startLimit = (horizontal) ? rv.getPaddingLeft() : rv.getPaddingTop();
+        final int endLimit = (horizontal)
+                ? (rv.getWidth() - rv.getPaddingRight())
+                : (rv.getHeight() - rv.getPaddingBottom());
+        boolean edgeItemFound = false;
+
+        for (int i = 0; i < childCount; i++) {
+            final View v = layoutManager.getChildAt(i);
+
+            if (direction < 0) {
+                final int start = (horizontal) ? layoutManager.getDecoratedLeft(v) : layoutManager.getDecoratedTop(v);
+                if (start < startLimit) {
+                    return true;
+                }
+            } else {
+                final int end = (horizontal) ? layoutManager.getDecoratedRight(v) : layoutManager.getDecoratedBottom(v);
+                if (end > endLimit) {
+                    return true;
+                }
+            }
+
+            if (layoutManager.getPosition(v) == edgePosition) {
+                edgeItemFound = true;
+            }
+        }
+
+        // all the children are inside of the padding, more items exist only if the edge item is not laid out
+        return !edgeItemFound;
+    }
+
+    private float getEffectiveDraggingItemElevation() {
+        return (mDraggingItemElevation >= 0.0f)
+                ? mDraggingItemElevation : (DEFAULT_DRAGGING_ITEM_ELEVATION * mDisplayDensity);
+    }
 
-        mActualScrollByAmount = 0;
-        mInScrollByMethod = true;
-        mRecyclerView.scrollBy(0, ry);
-        mInScrollByMethod = false;
+    private static void scrollBy(RecyclerView rv, int amount, boolean horizontal) {
+        if (horizontal) {
+            rv.scrollBy(amount, 0);
+        } else {
+            rv.scrollBy(0, amount);
+        }
+    }
 
-        return mActualScrollByAmount;
+    private boolean isHorizontalLayout() {
+        return (mOrientation == CustomRecyclerViewUtils.ORIENTATION_HORIZONTAL);
     }
 
     /*package*/ RecyclerView getRecyclerView() {
@@ -575,10 +929,12 @@ public class RecyclerViewDragDropManager {
     }
 
     private void swapItems(RecyclerView rv, RecyclerView.ViewHolder draggingItem, RecyclerView.ViewHolder swapTargetHolder) {
-        final Rect swapTargetMargins = CustomRecyclerViewUtils.getLayoutMargins(swapTargetHolder.itemView, mTmpRect1);
+        final Rect swapTargetMargins = getChildMargins(swapTargetHolder, mTmpRect1);
         final int fromPosition = draggingItem.getPosition();
         final int toPosition = swapTargetHolder.getPosition();
         final int diffPosition = Math.abs(fromPosition - toPosition);
+        final boolean isLinearLayout = CustomRecyclerViewUtils.isLinearLikeLayout(mLayoutType);
+        final boolean horizontal = isHorizontalLayout();
         boolean performSwapping = false;
 
         if (fromPosition == RecyclerView.NO_POSITION || toPosition == RecyclerView.NO_POSITION) {
@@ -594,17 +950,30 @@ public class RecyclerViewDragDropManager {
         }
 
         if (diffPosition == 0) {
+        } else if (!isLinearLayout) {
+            // the overlaid item's center point is already over the swap target (see findSwapTargetItemInGrid())
+            performSwapping = true;
         } else if (diffPosition == 1) {
             final View v1 = draggingItem.itemView;
             final View v2 = swapTargetHolder.itemView;
             final Rect m1 = mDraggingItemMargins;
             final Rect m2 = swapTargetMargins;
 
-            final int top = Math.min(v1.getTop() - m1.top, v2.getTop() - m2.top);
-            final int bottom = Math.max(v1.getBottom() + m1.bottom, v2.getBottom() + m2.bottom);
+            final int start;
+            final int end;
+            final float midPointOfTheOverlaidItem;
 
-            final float midPointOfTheItems = top + ((bottom - top) * 0.5f);
-            final float midPointOfTheOverlaidItem = (mLastTouchY - mGrabbedPositionY) + (mGrabbedItemHeight * 0.5f);
+            if (horizontal) {
+                start = Math.min(v1.getLeft() - m1.left, v2.getLeft() - m2.left);
+                end = Math.max(v1.getRight() + m1.right, v2.getRight() + m2.right);
+                midPointOfTheOverlaidItem = (mLastTouchX - mGrabbedPositionX) + (mGrabbedItemWidth * 0.5f);
+            } else {
+                start = Math.min(v1.getTop() - m1.top, v2.getTop() - m2.top);
+                end = Math.max(v1.getBottom() + m1.bottom, v2.getBottom() + m2.bottom);
+                midPointOfTheOverlaidItem = (mLastTouchY - mGrabbedPositionY) + (mGrabbedItemHeight * 0.5f);
+            }
+
+            final float midPointOfTheItems = start + ((end - start) * 0.5f);
 
             if (toPosition < fromPosition) {
                 if (midPointOfTheOverlaidItem < midPointOfTheItems) {
@@ -626,30 +995,77 @@ public class RecyclerViewDragDropManager {
                 Log.d(TAG, "item swap (from: " + fromPosition + ", to: " + toPosition + ")");
             }
 
-            RecyclerView.ViewHolder firstVisibleTopItem = null;
-
-            if (rv.getChildCount() > 0) {
-                View child = rv.getChildAt(0);
-                if (child != null) {
-                    firstVisibleTopItem = rv.getChildViewHolder(child);
-                }
+            if (isLinearLayout) {
+                moveItemInLinearLayout(rv, fromPosition, toPosition, swapTargetHolder);
+            } else {
+                moveItemInGridLayout(rv, fromPosition, toPosition, swapTargetHolder);
             }
-            final int prevTopItemPosition = (firstVisibleTopItem != null) ? firstVisibleTopItem.getPosition() : RecyclerView.NO_POSITION;
 
+            // the children will be laid out (and may have been scrolled)
+            mChildrenSnapshot.invalidate();
+
+            safeEndAnimations(rv);
+        }
+    }
+
+    private void moveItemInLinearLayout(RecyclerView rv, int fromPosition, int toPosition, RecyclerView.ViewHolder swapTargetHolder) {
+        final VisibleChildrenSnapshot children = mChildrenSnapshot;
+        final int diffPosition = Math.abs(fromPosition - toPosition);
+        final boolean horizontal = isHorizontalLayout();
+        // NOTE: the first child is not always placed at the top in unknown layouts, the scroll position is not adjusted
+        final int prevTopItemPosition = (children.getCount() > 0 && CustomRecyclerViewUtils.isLinearLayout(mLayoutType))
+                ? children.getPosition(0) : RecyclerView.NO_POSITION;
+
+        // the item which will be placed at the top after moving the dragging item
+        RecyclerView.ViewHolder nextTopItem = null;
+        if (fromPosition == prevTopItemPosition) {
+            if (diffPosition == 1) {
+                nextTopItem = swapTargetHolder;
+            } else {
+                final int index = children.indexOfPosition(fromPosition + 1);
+                nextTopItem = (index >= 0) ? children.getViewHolder(index) : null;
+            }
+        }
 
-            mAdapter.moveItem(fromPosition, toPosition);
+        mAdapter.moveItem(fromPosition, toPosition);
 
-            if (fromPosition == prevTopItemPosition) {
-                final Rect margins = swapTargetMargins;
-                final int curTopItemHeight = swapTargetHolder.itemView.getHeight() + margins.top + margins.bottom;
-                scrollByYAndGetScrolledAmount(-curTopItemHeight);
-            } else if (toPosition == prevTopItemPosition) {
-                final Rect margins = mDraggingItemMargins;
-                final int curTopItemHeight = mGrabbedItemHeight + margins.top + margins.bottom;
-                scrollByYAndGetScrolledAmount(-curTopItemHeight);
+        if (fromPosition == prevTopItemPosition) {
+            if (nextTopItem != null) {
+                final View v = nextTopItem.itemView;
+                final Rect margins = getChildMargins(nextTopItem, mTmpRect1);
+                final int curTopItemSize = (horizontal)
+                        ? (v.getWidth() + margins.left + margins.right)
+                        : (v.getHeight() + margins.top + margins.bottom);
+                scrollBy(rv, -curTopItemSize, horizontal);
             }
+        } else if (toPosition == prevTopItemPosition) {
+            final Rect margins = mDraggingItemMargins;
+            final int curTopItemSize = (horizontal)
+                    ? (mGrabbedItemWidth + margins.left + margins.right)
+                    : (mGrabbedItemHeight + margins.top + margins.bottom);
+            scrollBy(rv, -curTopItemSize, horizontal);
+        }
+    }
 
-            safeEndAnimations(rv);
+    private void moveItemInGridLayout(RecyclerView rv, int fromPosition, int toPosition, RecyclerView.ViewHolder swapTargetHolder) {
+        final View v = swapTargetHolder.itemView;
+        final Rect margins = getChildMargins(swapTargetHolder, mTmpRect1);
+        final boolean targetIsOnTheEdge;
+
+        if (isHorizontalLayout()) {
+            targetIsOnTheEdge = ((v.getLeft() - margins.left) <= rv.getPaddingLeft()) ||
+                    ((v.getRight() + margins.right) >= (rv.getWidth() - rv.getPaddingRight()));
+        } else {
+            targetIsOnTheEdge = ((v.getTop() - margins.top) <= rv.getPaddingTop()) ||
+                    ((v.getBottom() + margins.bottom) >= (rv.getHeight() - rv.getPaddingBottom()));
+        }
+
+        mAdapter.moveItem(fromPosition, toPosition);
+
+        if (targetIsOnTheEdge) {
+            // NOTE: grid layout managers keep their anchor item, so the dragging item may be
+            // pushed out of the visible area without this.
+            rv.scrollToPosition(toPosition);
         }
     }
 
@@ -699,37 +1115,165 @@ public class RecyclerViewDragDropManager {
         }
     }
 
+    private Rect getChildMargins(RecyclerView.ViewHolder holder, Rect outMargins) {
+        final VisibleChildrenSnapshot children = mChildrenSnapshot;
+        final int index = children.indexOfPosition(holder.getPosition());
+
+        if (index >= 0 && children.getViewHolder(index) == holder) {
+            return children.getMargins(index, outMargins);
+        } else {
+            return CustomRecyclerViewUtils.getLayoutMargins(holder.itemView, outMargins);
+        }
+    }
+
     /*package*/
-    static RecyclerView.ViewHolder findSwapTargetItem(
-            RecyclerView rv, RecyclerView.ViewHolder draggingItem,
-            long draggingItemId, int overlayItemTop) {
+    static int findSwapTargetItemIndex(
+            RecyclerView rv, VisibleChildrenSnapshot children, RecyclerView.ViewHolder draggingItem,
+            long draggingItemId, int overlayItemStart, boolean horizontal) {
         final int draggingItemPosition = draggingItem.getPosition();
-        final int draggingViewTop = draggingItem.itemView.getTop();
-        RecyclerView.ViewHolder swapTargetHolder = null;
+        final int draggingViewStart = (horizontal) ? draggingItem.itemView.getLeft() : draggingItem.itemView.getTop();
 
         // determine the swap target view
         if (draggingItemPosition != RecyclerView.NO_POSITION &&
                 draggingItem.getItemId() == draggingItemId) {
-            if (overlayItemTop < draggingViewTop) {
+            if (overlayItemStart < draggingViewStart) {
                 if (draggingItemPosition > 0) {
-                    swapTargetHolder = rv.findViewHolderForPosition(draggingItemPosition - 1);
+                    return children.indexOfPosition(draggingItemPosition - 1);
                 }
-            } else if (overlayItemTop > draggingViewTop) {
+            } else if (overlayItemStart > draggingViewStart) {
                 if (draggingItemPosition < (rv.getAdapter().getItemCount() - 1)) {
-                    swapTargetHolder = rv.findViewHolderForPosition(draggingItemPosition + 1);
+                    return children.indexOfPosition(draggingItemPosition + 1);
                 }
             }
         }
 
-        return swapTargetHolder;
+        return -1;
+    }
+
+    private static RecyclerView.ViewHolder findSwapTargetItem(
+            RecyclerView rv, VisibleChildrenSnapshot children, RecyclerView.ViewHolder draggingItem,
+            long draggingItemId, int overlayItemStart, boolean horizontal) {
+        final int index = findSwapTargetItemIndex(rv, children, draggingItem, draggingItemId, overlayItemStart, horizontal);
+        return (index >= 0) ? children.getViewHolder(index) : null;
+    }
+
+    private RecyclerView.ViewHolder findDistantSwapTargetItem(
+            RecyclerView rv, VisibleChildrenSnapshot children, RecyclerView.ViewHolder draggingItem,
+            long draggingItemId, int overlayItemStart) {
+        final int draggingItemPosition = draggingItem.getPosition();
+
+        if (draggingItemPosition == RecyclerView.NO_POSITION ||
+                draggingItem.getItemId() != draggingItemId) {
+            return null;
+        }
+
+        if (CustomRecyclerViewUtils.isReverseLayout(rv.getLayoutManager())) {
+            return null;
+        }
+
+        final boolean horizontal = isHorizontalLayout();
+        final int overlayItemCenter = overlayItemStart + (((horizontal) ? mGrabbedItemWidth : mGrabbedItemHeight) / 2);
+        final int index = children.findChildIndexByStartPosition(overlayItemCenter, horizontal);
+
+        if (index < 0) {
+            return null;
+        }
+
+        final RecyclerView.ViewHolder holder = children.getViewHolder(index);
+        final int position = children.getPosition(index);
+
+        if (holder == null || position == RecyclerView.NO_POSITION) {
+            return null;
+        }
+
+        // adjacent items are handled by findSwapTargetItem() (it considers the middle point of the both items)
+        if (Math.abs(position - draggingItemPosition) <= 1) {
+            return null;
+        }
+
+        // verify the hit item is moving to the same direction as the overlaid item
+        final int draggingViewStart = (horizontal) ? draggingItem.itemView.getLeft() : draggingItem.itemView.getTop();
+
+        if ((position < draggingItemPosition) != (overlayItemStart < draggingViewStart)) {
+            return null;
+        }
+
+        return holder;
+    }
+
+    private RecyclerView.ViewHolder findSwapTargetItemInGrid(
+            VisibleChildrenSnapshot children, RecyclerView.ViewHolder draggingItem,
+            long draggingItemId, int overlayItemLeft, int overlayItemTop) {
+        final int draggingItemPosition = draggingItem.getPosition();
+
+        if (draggingItemPosition == RecyclerView.NO_POSITION ||
+                draggingItem.getItemId() != draggingItemId) {
+            return null;
+        }
+
+        final int cx = overlayItemLeft + (mGrabbedItemWidth / 2);
+        final int cy = overlayItemTop + (mGrabbedItemHeight / 2);
+        final View draggingView = draggingItem.itemView;
+
+        // the overlaid item is still over its own slot
+        if (cx >= draggingView.getLeft() && cx <= draggingView.getRight() &&
+                cy >= draggingView.getTop() && cy <= draggingView.getBottom()) {
+            return null;
+        }
+
+        mVisibleItemSpatialIndex.build(children);
+
+        final int index = mVisibleItemSpatialIndex.findChildIndexUnder(cx, cy);
+
+        if (index < 0) {
+            return null;
+        }
+
+        final RecyclerView.ViewHolder holder = children.getViewHolder(index);
+
+        if (holder == null || holder == draggingItem || children.getPosition(index) == RecyclerView.NO_POSITION) {
+            return null;
+        }
+
+        return holder;
+    }
+
+    private void addPreDrawListener(RecyclerView rv) {
+        if (mViewTreeObserver != null) {
+            return;
+        }
+
+        mViewTreeObserver = rv.getViewTreeObserver();
+        mViewTreeObserver.addOnPreDrawListener(mPreDrawListener);
+    }
+
+    private void removePreDrawListener() {
+        // NOTE: the observer may have been replaced if the view has been re-attached
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            mViewTreeObserver.removeOnPreDrawListener(mPreDrawListener);
+        }
+
+        if (mRecyclerView != null) {
+            final ViewTreeObserver current = mRecyclerView.getViewTreeObserver();
+            if (current != mViewTreeObserver && current.isAlive()) {
+                current.removeOnPreDrawListener(mPreDrawListener);
+            }
+        }
+
+        mViewTreeObserver = null;
     }
 
-    private static class ScrollOnDraggingProcessRunnable implements Runnable {
+    private static class ScrollOnDraggingProcessRunnable implements FrameCallbackCompat.Callback {
+        private static final long MAX_FRAME_INTERVAL = 100; // [ms]
+
         private final WeakReference<RecyclerViewDragDropManager> mHolderRef;
+        private final FrameCallbackCompat mFrameCallback;
         private boolean mStarted;
+        private long mLastFrameTime;
 
         public ScrollOnDraggingProcessRunnable(RecyclerViewDragDropManager holder) {
             mHolderRef = new WeakReference<RecyclerViewDragDropManager>(holder);
+            mFrameCallback = new FrameCallbackCompat(this);
         }
 
         public void start() {
@@ -749,9 +1293,10 @@ public class RecyclerViewDragDropManager {
                 return;
             }
 
-            ViewCompat.postOnAnimation(rv, this);
-
+            mLastFrameTime = 0;
             mStarted = true;
+
+            scheduleNextFrame(rv);
         }
 
         public void stop() {
@@ -760,15 +1305,22 @@ public class RecyclerViewDragDropManager {
             }
 
             mStarted = false;
+            mLastFrameTime = 0;
+
+            // remove the pending callback, otherwise a restarted process runs twice per frame
+            final RecyclerViewDragDropManager holder = mHolderRef.get();
+
+            mFrameCallback.cancel((holder != null) ? holder.getRecyclerView() : null);
         }
 
         public void release() {
+            stop();
             mHolderRef.clear();
             mStarted = false;
         }
 
         @Override
-        public void run() {
+        public void doFrame(long frameTime) {
             final RecyclerViewDragDropManager holder = mHolderRef.get();
 
             if (holder == null) {
@@ -779,17 +1331,28 @@ public class RecyclerViewDragDropManager {
                 return;
             }
 
+            // NOTE: the scroll amount is calculated from the actual frame interval,
+            // so the scroll speed does not depend on the display refresh rate.
+            final long frameInterval = (mLastFrameTime != 0)
+                    ? Math.min(Math.max(frameTime - mLastFrameTime, 0), MAX_FRAME_INTERVAL) : 0;
+
+            mLastFrameTime = frameTime;
+
             // call scrolling process
-            holder.handleScrollOnDragging();
+            holder.handleScrollOnDragging(frameTime, frameInterval);
 
             // re-schedule the process
             final RecyclerView rv = holder.getRecyclerView();
 
             if (rv != null && mStarted) {
-                ViewCompat.postOnAnimation(rv, this);
+                scheduleNextFrame(rv);
             } else {
                 mStarted = false;
             }
         }
+
+        private void scheduleNextFrame(RecyclerView rv) {
+            mFrameCallback.post(rv);
+        }
     }
 }
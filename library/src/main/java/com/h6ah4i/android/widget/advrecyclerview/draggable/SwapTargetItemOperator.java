@@ -16,25 +16,30 @@
 
 package com.h6ah4i.android.widget.advrecyclerview.draggable;
 
-import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.animation.Interpolator;
 
 import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
 
-class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
+class SwapTargetItemOperator {
     @SuppressWarnings("unused")
     private static final String TAG = "SwapTargetItemOperator";
 
     private RecyclerView mRecyclerView;
     private RecyclerView.ViewHolder mDraggingItem;
     private RecyclerView.ViewHolder mSwapTargetItem;
+    private VisibleChildrenSnapshot mChildren;
     private Interpolator mSwapTargetTranslationInterpolator;
+    private int mTranslationX;
     private int mTranslationY;
+    private int mDraggingItemWidth;
     private int mDraggingItemHeight;
+    private int mOrientation;
     private Rect mSwapTargetDecorationOffsets = new Rect();
     private Rect mSwapTargetItemMargins = new Rect();
     private Rect mDraggingItemMargins = new Rect();
@@ -43,11 +48,29 @@ class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
     private float mReqTranslationPhase;
     private float mCurTranslationPhase;
     private long mDraggingItemId;
+    private ViewTreeObserver mViewTreeObserver;
+    private final ViewTreeObserver.OnPreDrawListener mPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            refresh();
+            return true;
+        }
+    };
 
-    public SwapTargetItemOperator(RecyclerView recyclerView, RecyclerView.ViewHolder draggingItem) {
+    // NOTE: This operator is created once per RecyclerViewDragDropManager and reused for every drag (see prepare() / finish())
+    public SwapTargetItemOperator(RecyclerView recyclerView, VisibleChildrenSnapshot children) {
         mRecyclerView = recyclerView;
+        mChildren = children;
+    }
+
+    public void prepare(RecyclerView.ViewHolder draggingItem) {
+        if (mStarted) {
+            return;
+        }
+
         mDraggingItem = draggingItem;
         mDraggingItemId = mDraggingItem.getItemId();
+        mOrientation = CustomRecyclerViewUtils.getOrientation(mRecyclerView);
 
         CustomRecyclerViewUtils.getLayoutMargins(mDraggingItem.itemView, mDraggingItemMargins);
         CustomRecyclerViewUtils.getDecorationOffsets(
@@ -58,25 +81,31 @@ class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
         mSwapTargetTranslationInterpolator = interpolator;
     }
 
-    @Override
-    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+    // NOTE:
+    // This is called before every frame is drawn (after layout), the RecyclerView itself does not have to be invalidated.
+    // While the translation is being interpolated, setTranslationY() of the swap target schedules the next frame.
+    private void refresh() {
         final RecyclerView.ViewHolder draggingItem = mDraggingItem;
 
         if (draggingItem == null || draggingItem.getItemId() != mDraggingItemId) {
             return;
         }
 
-        final RecyclerView.ViewHolder swapTargetItem =
-                RecyclerViewDragDropManager.findSwapTargetItem(
-                        mRecyclerView, draggingItem, mDraggingItemId, mTranslationY);
+        final VisibleChildrenSnapshot children = mChildren;
+
+        children.ensureCaptured(mRecyclerView);
 
-        // reset Y-translation if the swap target has changed
+        final int swapTargetIndex = RecyclerViewDragDropManager.findSwapTargetItemIndex(
+                mRecyclerView, children, draggingItem, mDraggingItemId, getTranslation(), isHorizontal());
+        final RecyclerView.ViewHolder swapTargetItem = (swapTargetIndex >= 0) ? children.getViewHolder(swapTargetIndex) : null;
+
+        // reset translation if the swap target has changed
         if ((mSwapTargetItem != swapTargetItem) && (mSwapTargetItem != null)) {
-            setItemTranslationY(mRecyclerView, mSwapTargetItem, 0.0f);
+            resetItemTranslation(mRecyclerView, mSwapTargetItem);
         }
 
         if (swapTargetItem != null) {
-            mReqTranslationPhase = calculateTranslationPhase(draggingItem, swapTargetItem);
+            mReqTranslationPhase = calculateTranslationPhase(draggingItem, swapTargetItem, swapTargetIndex);
 
             if (mSwapTargetItem != swapTargetItem) {
                 mCurTranslationPhase = mReqTranslationPhase;
@@ -91,21 +120,29 @@ class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
         mSwapTargetItem = swapTargetItem;
     }
 
-    private float calculateTranslationPhase(RecyclerView.ViewHolder draggingItem, RecyclerView.ViewHolder swapTargetItem) {
-        final View swapItemView = swapTargetItem.itemView;
+    private float calculateTranslationPhase(
+            RecyclerView.ViewHolder draggingItem, RecyclerView.ViewHolder swapTargetItem, int swapTargetIndex) {
+        final VisibleChildrenSnapshot children = mChildren;
 
         final int pos1 = draggingItem.getPosition();
-        final int pos2 = swapTargetItem.getPosition();
+        final int pos2 = children.getPosition(swapTargetIndex);
 
-        CustomRecyclerViewUtils.getDecorationOffsets(
-                mRecyclerView.getLayoutManager(), swapItemView, mSwapTargetDecorationOffsets);
-        CustomRecyclerViewUtils.getLayoutMargins(swapItemView, mSwapTargetItemMargins);
+        children.getDecorationOffsets(swapTargetIndex, mSwapTargetDecorationOffsets);
+        children.getMargins(swapTargetIndex, mSwapTargetItemMargins);
 
         final Rect m2 = mSwapTargetItemMargins;
         final Rect d2 = mSwapTargetDecorationOffsets;
-        final int h2 = swapItemView.getHeight() + m2.top + m2.bottom + d2.top + d2.bottom;
+        final float offsetPx;
+        final int h2;
+
+        if (isHorizontal()) {
+            h2 = children.getWidth(swapTargetIndex) + m2.left + m2.right + d2.left + d2.right;
+            offsetPx = draggingItem.itemView.getLeft() - mTranslationX; // == -(ViewCompat.getTranslationX(draggingItem.itemView)
+        } else {
+            h2 = children.getHeight(swapTargetIndex) + m2.top + m2.bottom + d2.top + d2.bottom;
+            offsetPx = draggingItem.itemView.getTop() - mTranslationY; // == -(ViewCompat.getTranslationY(draggingItem.itemView)
+        }
 
-        final float offsetPx = draggingItem.itemView.getTop() - mTranslationY; // == -(ViewCompat.getTranslationY(draggingItem.itemView)
         final float phase = (h2 != 0) ? (offsetPx / h2) : 0.0f;
 
         float translationPhase;
@@ -137,36 +174,64 @@ class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
 
         final Rect m1 = mDraggingItemMargins;
         final Rect d1 = mDraggingItemDecorationOffsets;
-        final int h1 = mDraggingItemHeight + m1.top + m1.bottom + d1.top + d1.bottom;
+        final int h1 = (isHorizontal())
+                ? (mDraggingItemWidth + m1.left + m1.right + d1.left + d1.right)
+                : (mDraggingItemHeight + m1.top + m1.bottom + d1.top + d1.bottom);
 
         if (mSwapTargetTranslationInterpolator != null) {
             translationPhase = mSwapTargetTranslationInterpolator.getInterpolation(translationPhase);
         }
 
+        final float translation;
+
         if (pos1 > pos2) {
-            // dragging item moving to upward
-            ViewCompat.setTranslationY(swapItemView, translationPhase * h1);
+            // dragging item moving to upward (leftward)
+            translation = translationPhase * h1;
         } else {
-            // dragging item moving to downward
-            ViewCompat.setTranslationY(swapItemView, (translationPhase - 1.0f) * h1);
+            // dragging item moving to downward (rightward)
+            translation = (translationPhase - 1.0f) * h1;
+        }
+
+        if (isHorizontal()) {
+            ViewCompat.setTranslationX(swapItemView, translation);
+        } else {
+            ViewCompat.setTranslationY(swapItemView, translation);
         }
     }
 
-    public void start() {
+    public boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * Discards the prepared state without touching the views. (Only valid before start() is called)
+     */
+    public void cancelPreparation() {
         if (mStarted) {
             return;
         }
 
+        mDraggingItem = null;
+        mDraggingItemId = RecyclerView.NO_ID;
+    }
+
+    public void start() {
+        if (mStarted || mDraggingItem == null) {
+            return;
+        }
+
+        mDraggingItemWidth = mDraggingItem.itemView.getWidth();
         mDraggingItemHeight = mDraggingItem.itemView.getHeight();
 
-        mRecyclerView.addItemDecoration(this, 0);
+        mViewTreeObserver = mRecyclerView.getViewTreeObserver();
+        mViewTreeObserver.addOnPreDrawListener(mPreDrawListener);
 
         mStarted = true;
     }
 
     public void finish() {
         if (mStarted) {
-            mRecyclerView.removeItemDecoration(this);
+            removePreDrawListener();
         }
 
         final RecyclerView.ItemAnimator itemAnimator = mRecyclerView.getItemAnimator();
@@ -176,26 +241,55 @@ class SwapTargetItemOperator extends RecyclerView.ItemDecoration {
         mRecyclerView.stopScroll();
 
         if (mSwapTargetItem != null) {
+            ViewCompat.setTranslationX(mSwapTargetItem.itemView, 0.0f);
             ViewCompat.setTranslationY(mSwapTargetItem.itemView, 0.0f);
             mSwapTargetItem = null;
         }
 
+        mTranslationX = 0;
         mTranslationY = 0;
+        mDraggingItemWidth = 0;
         mDraggingItemHeight = 0;
         mCurTranslationPhase = 0.0f;
         mReqTranslationPhase = 0.0f;
+        mDraggingItem = null;
+        mDraggingItemId = RecyclerView.NO_ID;
         mStarted = false;
     }
 
-    public void update(int translationY) {
+    public void update(int translationX, int translationY) {
+        mTranslationX = translationX;
         mTranslationY = translationY;
     }
 
-    private static void setItemTranslationY(RecyclerView rv, RecyclerView.ViewHolder holder, float y) {
+    private void removePreDrawListener() {
+        // NOTE: the observer may have been replaced if the view has been re-attached
+        if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+            mViewTreeObserver.removeOnPreDrawListener(mPreDrawListener);
+        }
+
+        final ViewTreeObserver current = mRecyclerView.getViewTreeObserver();
+        if (current != mViewTreeObserver && current.isAlive()) {
+            current.removeOnPreDrawListener(mPreDrawListener);
+        }
+
+        mViewTreeObserver = null;
+    }
+
+    private boolean isHorizontal() {
+        return (mOrientation == CustomRecyclerViewUtils.ORIENTATION_HORIZONTAL);
+    }
+
+    private int getTranslation() {
+        return (isHorizontal()) ? mTranslationX : mTranslationY;
+    }
+
+    private static void resetItemTranslation(RecyclerView rv, RecyclerView.ViewHolder holder) {
         final RecyclerView.ItemAnimator itemAnimator = rv.getItemAnimator();
         if (itemAnimator != null) {
             itemAnimator.endAnimation(holder);
         }
+        ViewCompat.setTranslationX(holder.itemView, 0.0f);
         ViewCompat.setTranslationY(holder.itemView, 0.0f);
     }
 }
\ No newline at end of file
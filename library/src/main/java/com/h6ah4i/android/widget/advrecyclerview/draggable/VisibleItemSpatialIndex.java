@@ -0,0 +1,234 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.draggable;
+
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
+
+/**
+ * Uniform grid index over the layout bounds (translation is not applied) of the visible child views.
+ * It is rebuilt only when the source snapshot has been re-captured.
+ *
+ * Each cell holds the indices of the children which overlap it, so a point query only has to test
+ * the children of a single cell.
+ */
+class VisibleItemSpatialIndex {
+    private static final int MAX_CELLS = 1024;
+
+    private boolean mBuilt;
+    private VisibleChildrenSnapshot mSource;
+    private int mSourceGeneration;
+    private int mChildCount;
+    private int[] mLeft = new int[0];
+    private int[] mTop = new int[0];
+    private int[] mRight = new int[0];
+    private int[] mBottom = new int[0];
+
+    private int mOriginX;
+    private int mOriginY;
+    private int mCellWidth;
+    private int mCellHeight;
+    private int mColumns;
+    private int mRows;
+    private int[] mCellStart = new int[0]; // length: (number of cells + 1)
+    private int[] mCellItems = new int[0];
+
+    public void build(VisibleChildrenSnapshot children) {
+        // the snapshot has not been re-captured since the last build
+        if (mBuilt && children == mSource && children.getGeneration() == mSourceGeneration) {
+            return;
+        }
+
+        mBuilt = true;
+        mSource = children;
+        mSourceGeneration = children.getGeneration();
+
+        final int childCount = children.getCount();
+
+        ensureChildCapacity(childCount);
+        mChildCount = childCount;
+
+        if (childCount == 0) {
+            mColumns = mRows = 0;
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        long sumWidth = 0;
+        long sumHeight = 0;
+
+        for (int i = 0; i < childCount; i++) {
+            mLeft[i] = children.getLeft(i);
+            mTop[i] = children.getTop(i);
+            mRight[i] = children.getRight(i);
+            mBottom[i] = children.getBottom(i);
+
+            minX = Math.min(minX, mLeft[i]);
+            minY = Math.min(minY, mTop[i]);
+            maxX = Math.max(maxX, mRight[i]);
+            maxY = Math.max(maxY, mBottom[i]);
+            sumWidth += (mRight[i] - mLeft[i]);
+            sumHeight += (mBottom[i] - mTop[i]);
+        }
+
+        // cell size == average item size
+        int cellWidth = Math.max(1, (int) (sumWidth / childCount));
+        int cellHeight = Math.max(1, (int) (sumHeight / childCount));
+        int columns = ((maxX - minX) / cellWidth) + 1;
+        int rows = ((maxY - minY) / cellHeight) + 1;
+
+        while (columns * rows > MAX_CELLS) {
+            cellWidth *= 2;
+            cellHeight *= 2;
+            columns = ((maxX - minX) / cellWidth) + 1;
+            rows = ((maxY - minY) / cellHeight) + 1;
+        }
+
+        mOriginX = minX;
+        mOriginY = minY;
+        mCellWidth = cellWidth;
+        mCellHeight = cellHeight;
+        mColumns = columns;
+        mRows = rows;
+
+        final int numCells = columns * rows;
+
+        if (mCellStart.length < (numCells + 1)) {
+            mCellStart = new int[numCells + 1];
+        }
+
+        // pass 1: count the items of each cell
+        final int[] cellStart = mCellStart;
+
+        for (int i = 0; i <= numCells; i++) {
+            cellStart[i] = 0;
+        }
+
+        int total = 0;
+        for (int i = 0; i < childCount; i++) {
+            final int c0 = cellColumn(mLeft[i]);
+            final int c1 = cellColumn(mRight[i]);
+            final int r0 = cellRow(mTop[i]);
+            final int r1 = cellRow(mBottom[i]);
+
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1] += 1;
+                    total += 1;
+                }
+            }
+        }
+
+        for (int i = 0; i < numCells; i++) {
+            cellStart[i + 1] += cellStart[i];
+        }
+
+        if (mCellItems.length < total) {
+            mCellItems = new int[total];
+        }
+
+        // pass 2: fill the items (cellStart[cell] is used as the write cursor, then restored)
+        for (int i = 0; i < childCount; i++) {
+            final int c0 = cellColumn(mLeft[i]);
+            final int c1 = cellColumn(mRight[i]);
+            final int r0 = cellRow(mTop[i]);
+            final int r1 = cellRow(mBottom[i]);
+
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    final int cell = r * columns + c;
+                    mCellItems[cellStart[cell]] = i;
+                    cellStart[cell] += 1;
+                }
+            }
+        }
+
+        for (int i = numCells; i > 0; i--) {
+            cellStart[i] = cellStart[i - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Finds the child view which contains the specified point.
+     *
+     * @return Index of the child view, or -1 if not found. If multiple children contain the point,
+     * the top-most (largest index) one is returned.
+     */
+    public int findChildIndexUnder(int x, int y) {
+        if (mChildCount == 0 || mColumns == 0 || mRows == 0) {
+            return -1;
+        }
+
+        if (x < mOriginX || y < mOriginY) {
+            return -1;
+        }
+
+        final int c = (x - mOriginX) / mCellWidth;
+        final int r = (y - mOriginY) / mCellHeight;
+
+        if (c >= mColumns || r >= mRows) {
+            return -1;
+        }
+
+        final int cell = r * mColumns + c;
+        final int start = mCellStart[cell];
+        final int end = mCellStart[cell + 1];
+        int found = -1;
+
+        for (int i = start; i < end; i++) {
+            final int index = mCellItems[i];
+
+            if (index > found &&
+                    x >= mLeft[index] && x <= mRight[index] &&
+                    y >= mTop[index] && y <= mBottom[index]) {
+                found = index;
+            }
+        }
+
+        return found;
+    }
+
+    public void clear() {
+        mBuilt = false;
+        mSource = null;
+        mChildCount = 0;
+        mColumns = 0;
+        mRows = 0;
+    }
+
+    private int cellColumn(int x) {
+        return Math.min(Math.max((x - mOriginX) / mCellWidth, 0), mColumns - 1);
+    }
+
+    private int cellRow(int y) {
+        return Math.min(Math.max((y - mOriginY) / mCellHeight, 0), mRows - 1);
+    }
+
+    private void ensureChildCapacity(int n) {
+        if (mLeft.length >= n) {
+            return;
+        }
+
+        mLeft = new int[n];
+        mTop = new int[n];
+        mRight = new int[n];
+        mBottom = new int[n];
+    }
+}
@@ -39,13 +39,15 @@ public class ItemSlidingAnimator {
 
     private Interpolator mSlideToDefaultPositionAnimationInterpolator = new AccelerateDecelerateInterpolator();
     private Interpolator mSlideToOutsideOfWindowAnimationInterpolator = new AccelerateInterpolator(0.8f);
-    private List<RecyclerView.ViewHolder> mActive;
+    private List<SlidingAnimatorListener> mActive; // one listener per animating holder
+    private List<SlidingAnimatorListener> mListenerPool;
     private int[] mTmpLocation = new int[2];
     private Rect mTmpRect = new Rect();
     private int mImmediatelySetTranslationThreshold;
 
     public ItemSlidingAnimator() {
         mActive = new ArrayList<>();
+        mListenerPool = new ArrayList<>();
     }
 
     public void slideToDefaultPosition(RecyclerView.ViewHolder holder, boolean shouldAnimate, long duration) {
@@ -150,7 +152,7 @@ public class ItemSlidingAnimator {
         return false;
     }
 
-    private boolean animateSlideInternal(final RecyclerView.ViewHolder holder, int translationX, long duration, Interpolator interpolator) {
+    private boolean animateSlideInternal(RecyclerView.ViewHolder holder, int translationX, long duration, Interpolator interpolator) {
         if (!(holder instanceof SwipeableItemViewHolder)) {
             return false;
         }
@@ -177,30 +179,30 @@ public class ItemSlidingAnimator {
             animator.setInterpolator(interpolator);
         }
         animator.translationX(toX);
-        animator.setListener(new ViewPropertyAnimatorListener() {
-            @Override
-            public void onAnimationStart(View view) {
-            }
+        final SlidingAnimatorListener listener = obtainListener(holder, animator, toX);
 
-            @Override
-            public void onAnimationEnd(View view) {
-                animator.setListener(null);
-                mActive.remove(holder);
-                ViewCompat.setTranslationX(view, toX);
-            }
+        animator.setListener(listener);
 
-            @Override
-            public void onAnimationCancel(View view) {
-            }
-        });
-
-        mActive.add(holder);
+        mActive.add(listener);
 
         animator.start();
 
         return true;
     }
 
+    private SlidingAnimatorListener obtainListener(
+            RecyclerView.ViewHolder holder, ViewPropertyAnimatorCompat animator, int toX) {
+        final int count = mListenerPool.size();
+        final SlidingAnimatorListener listener =
+                (count > 0) ? mListenerPool.remove(count - 1) : new SlidingAnimatorListener();
+
+        listener.mHolder = holder;
+        listener.mAnimator = animator;
+        listener.mToX = toX;
+
+        return listener;
+    }
+
     public void endAnimation(RecyclerView.ViewHolder holder) {
         if (!(holder instanceof SwipeableItemViewHolder)) {
             return;
@@ -210,20 +212,40 @@ public class ItemSlidingAnimator {
 
         ViewCompat.animate(containerView).cancel();
 
-        if (mActive.remove(holder)) {
-            throw new IllegalStateException("after animation is cancelled, item should not be in the active animation list [slide]");
+        // NOTE:
+        // cancel() doesn't call back the listener if the animation has not been started yet, so the listener
+        // is recycled (and the item is moved to the end position) here instead of being dropped with the holder
+        // left in the active list
+        final int index = indexOfActive(holder);
+
+        if (index >= 0) {
+            final SlidingAnimatorListener listener = mActive.get(index);
+            final int toX = listener.mToX;
+
+            listener.recycle();
+
+            ViewCompat.setTranslationX(containerView, toX);
         }
     }
 
     public void endAnimations() {
         for (int i = mActive.size() - 1; i >= 0; i--) {
-            final RecyclerView.ViewHolder holder = mActive.get(i);
+            final RecyclerView.ViewHolder holder = mActive.get(i).mHolder;
             endAnimation(holder);
         }
     }
 
     public boolean isRunning(RecyclerView.ViewHolder holder) {
-        return mActive.contains(holder);
+        return (indexOfActive(holder) >= 0);
+    }
+
+    private int indexOfActive(RecyclerView.ViewHolder holder) {
+        for (int i = mActive.size() - 1; i >= 0; i--) {
+            if (mActive.get(i).mHolder == holder) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public boolean isRunning() {
@@ -238,6 +260,46 @@ public class ItemSlidingAnimator {
         mImmediatelySetTranslationThreshold = threshold;
     }
 
+    // NOTE: the listeners are recycled to avoid allocations on every swipe
+    private class SlidingAnimatorListener implements ViewPropertyAnimatorListener {
+        private RecyclerView.ViewHolder mHolder;
+        private ViewPropertyAnimatorCompat mAnimator;
+        private int mToX;
+
+        @Override
+        public void onAnimationStart(View view) {
+        }
+
+        @Override
+        public void onAnimationEnd(View view) {
+            if (mHolder == null) {
+                // already recycled by endAnimation()
+                return;
+            }
+
+            final int toX = mToX;
+
+            recycle();
+
+            ViewCompat.setTranslationX(view, toX);
+        }
+
+        private void recycle() {
+            mAnimator.setListener(null);
+
+            mActive.remove(this);
+
+            mHolder = null;
+            mAnimator = null;
+            mToX = 0;
+            mListenerPool.add(this);
+        }
+
+        @Override
+        public void onAnimationCancel(View view) {
+        }
+    }
+
     private static boolean supportsViewPropertyAnimator() {
         return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
     }
@@ -29,10 +29,17 @@ import android.view.View;
 import android.view.ViewConfiguration;
 
 import com.h6ah4i.android.widget.advrecyclerview.animator.SwipeDismissItemAnimator;
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
 import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+import com.h6ah4i.android.widget.advrecyclerview.utils.FrameCallbackCompat;
+import com.h6ah4i.android.widget.advrecyclerview.utils.RecyclerViewGestureDispatcher;
+import com.h6ah4i.android.widget.advrecyclerview.utils.TouchPositionPredictor;
 import com.h6ah4i.android.widget.advrecyclerview.utils.ViewUtils;
 import com.h6ah4i.android.widget.advrecyclerview.utils.WrapperAdapterUtils;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
 public class RecyclerViewSwipeManager {
     private static final String TAG = "RecyclerViewSwipeManager";
 
@@ -67,12 +74,14 @@ public class RecyclerViewSwipeManager {
 
     private static final int MIN_DISTANCE_TOUCH_SLOP_MUL = 10;
     private static final int SLIDE_ITEM_IMMEDIATELY_SET_TRANSLATION_THRESHOLD_DP = 8;
+    private static final float MAX_TOUCH_PREDICTION_DISTANCE_DP = 32.0f; // [dp]
 
     private static final boolean LOCAL_LOGV = false;
     private static final boolean LOCAL_LOGD = false;
 
-    private RecyclerView.OnItemTouchListener mInternalUseOnItemTouchListener;
+    private RecyclerViewGestureDispatcher.GestureHandler mInternalUseGestureHandler;
     private RecyclerView mRecyclerView;
+    private CompositeItemDecoration mDecoration;
 
     private long mReturnToDefaultPositionAnimationDuration = 300;
     private long mMoveToOutsideWindowAnimationDuration = 200;
@@ -81,7 +90,6 @@ public class RecyclerViewSwipeManager {
     private int mMinFlingVelocity; // [pixels per second]
     private int mMaxFlingVelocity; // [pixels per second]
     private int mInitialTouchX;
-    private int mInitialTouchY;
     private long mCheckingTouchSlop = RecyclerView.NO_ID;
 
     private ItemSlidingAnimator mItemSlideAnimator;
@@ -93,21 +101,32 @@ public class RecyclerViewSwipeManager {
     private int mSwipingItemReactionType;
     private VelocityTracker mVelocityTracker;
     private SwipingItemOperator mSwipingItemOperator;
+    private final ArrayList<RemovingItemDecorator> mRemovingItemDecoratorPool = new ArrayList<RemovingItemDecorator>();
+    private SwipingItemUpdateRunnable mSwipingItemUpdateProcess;
+    private boolean mTouchMoveCoalescingEnabled = false;
+    private TouchPositionPredictor mTouchPositionPredictor = new TouchPositionPredictor();
 
     public RecyclerViewSwipeManager() {
-        mInternalUseOnItemTouchListener = new RecyclerView.OnItemTouchListener() {
+        mInternalUseGestureHandler = new RecyclerViewGestureDispatcher.GestureHandler() {
             @Override
-            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
-                return RecyclerViewSwipeManager.this.onInterceptTouchEvent(rv, e);
+            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                return RecyclerViewSwipeManager.this.onInterceptTouchEvent(rv, e, info);
             }
 
             @Override
-            public void onTouchEvent(RecyclerView rv, MotionEvent e) {
-                RecyclerViewSwipeManager.this.onTouchEvent(rv, e);
+            public void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                RecyclerViewSwipeManager.this.onTouchEvent(rv, e, info);
+            }
+
+            @Override
+            public void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+                RecyclerViewSwipeManager.this.onGestureInterceptedByOtherHandler(rv);
             }
         };
         mItemSlideAnimator = new ItemSlidingAnimator();
         mVelocityTracker = VelocityTracker.obtain();
+        mSwipingItemUpdateProcess = new SwipingItemUpdateRunnable(this);
+        mSwipingItemOperator = new SwipingItemOperator(this);
     }
 
     public SwipeableItemWrapperAdapter createWrappedAdapter(RecyclerView.Adapter adapter) {
@@ -121,7 +140,7 @@ public class RecyclerViewSwipeManager {
     }
 
     public boolean isReleased() {
-        return (mInternalUseOnItemTouchListener == null);
+        return (mInternalUseGestureHandler == null);
     }
 
     public void attachRecyclerView(RecyclerView rv) {
@@ -142,7 +161,12 @@ public class RecyclerViewSwipeManager {
         }
 
         mRecyclerView = rv;
-        mRecyclerView.addOnItemTouchListener(mInternalUseOnItemTouchListener);
+        RecyclerViewGestureDispatcher.addGestureHandler(
+                mRecyclerView, mInternalUseGestureHandler, RecyclerViewGestureDispatcher.PRIORITY_SWIPE);
+
+        // NOTE: installed only once here because adding/removing item decorations causes a layout pass
+        mDecoration = new CompositeItemDecoration();
+        mRecyclerView.addItemDecoration(mDecoration);
 
         final ViewConfiguration vc = ViewConfiguration.get(rv.getContext());
 
@@ -150,15 +174,29 @@ public class RecyclerViewSwipeManager {
         mMinFlingVelocity = vc.getScaledMinimumFlingVelocity();
         mMaxFlingVelocity = vc.getScaledMaximumFlingVelocity();
 
+        final float density = rv.getResources().getDisplayMetrics().density;
+
         mItemSlideAnimator.setImmediatelySetTranslationThreshold(
-                (int) (rv.getResources().getDisplayMetrics().density * SLIDE_ITEM_IMMEDIATELY_SET_TRANSLATION_THRESHOLD_DP + 0.5f));
+                (int) (density * SLIDE_ITEM_IMMEDIATELY_SET_TRANSLATION_THRESHOLD_DP + 0.5f));
+        mTouchPositionPredictor.setMaxDistance(density * MAX_TOUCH_PREDICTION_DISTANCE_DP);
     }
 
     public void release() {
-        if (mRecyclerView != null && mInternalUseOnItemTouchListener != null) {
-            mRecyclerView.removeOnItemTouchListener(mInternalUseOnItemTouchListener);
+        if (mRecyclerView != null && mInternalUseGestureHandler != null) {
+            RecyclerViewGestureDispatcher.removeGestureHandler(mRecyclerView, mInternalUseGestureHandler);
+        }
+        mInternalUseGestureHandler = null;
+
+        if (mSwipingItemUpdateProcess != null) {
+            mSwipingItemUpdateProcess.release();
+            mSwipingItemUpdateProcess = null;
+        }
+
+        if (mRecyclerView != null && mDecoration != null) {
+            mRecyclerView.removeItemDecoration(mDecoration);
         }
-        mInternalUseOnItemTouchListener = null;
+        mDecoration = null;
+        mRemovingItemDecoratorPool.clear();
 
         if (mVelocityTracker != null) {
             mVelocityTracker.recycle();
@@ -178,7 +216,7 @@ public class RecyclerViewSwipeManager {
         return (mSwipingItem != null);
     }
 
-    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         final int action = MotionEventCompat.getActionMasked(e);
 
         if (LOCAL_LOGV) {
@@ -198,7 +236,7 @@ public class RecyclerViewSwipeManager {
 
             case MotionEvent.ACTION_DOWN:
                 if (!isSwiping()) {
-                    handleActionDown(rv, e);
+                    handleActionDown(rv, info);
                 }
                 break;
 
@@ -208,7 +246,7 @@ public class RecyclerViewSwipeManager {
                     handleActionMoveWhileSwiping(e);
                     return true;
                 } else {
-                    if (handleActionMoveWhileNotSwiping(rv, e)) {
+                    if (handleActionMoveWhileNotSwiping(rv, e, info)) {
                         return true;
                     }
                 }
@@ -218,7 +256,7 @@ public class RecyclerViewSwipeManager {
         return false;
     }
 
-    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e) {
+    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         final int action = MotionEventCompat.getActionMasked(e);
 
         if (LOCAL_LOGV) {
@@ -242,9 +280,15 @@ public class RecyclerViewSwipeManager {
         }
     }
 
-    private boolean handleActionDown(RecyclerView rv, MotionEvent e) {
+    /*package*/ void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+        if (!isSwiping()) {
+            handleActionUpOrCancelWhileNotSwiping();
+        }
+    }
+
+    private boolean handleActionDown(RecyclerView rv, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         final RecyclerView.Adapter adapter = rv.getAdapter();
-        final RecyclerView.ViewHolder holder = CustomRecyclerViewUtils.findChildViewHolderUnderWithTranslation(rv, e.getX(), e.getY());
+        final RecyclerView.ViewHolder holder = info.findChildViewHolderUnderWithTranslation();
 
         if (!(holder instanceof SwipeableItemViewHolder)) {
             return false;
@@ -260,8 +304,8 @@ public class RecyclerViewSwipeManager {
             return false;
         }
 
-        final int touchX = (int) (e.getX() + 0.5f);
-        final int touchY = (int) (e.getY() + 0.5f);
+        final int touchX = info.getX();
+        final int touchY = info.getY();
 
         final View view = holder.itemView;
         final int translateX = (int) (ViewCompat.getTranslationX(view) + 0.5f);
@@ -276,7 +320,6 @@ public class RecyclerViewSwipeManager {
         }
 
         mInitialTouchX = touchX;
-        mInitialTouchY = touchY;
         mCheckingTouchSlop = holder.getItemId();
         mSwipingItemReactionType = reactionType;
 
@@ -295,6 +338,9 @@ public class RecyclerViewSwipeManager {
     private boolean handleActionUpOrCancelWhileSwiping(MotionEvent e) {
         mLastTouchX = (int) (e.getX() + 0.5f);
 
+        // NOTE: the result is determined by the touch position and the velocity, the pending item update is not needed
+        cancelSwipingItemUpdate();
+
         int result = RESULT_CANCELED;
 
         if (MotionEventCompat.getActionMasked(e) == MotionEvent.ACTION_UP) {
@@ -329,22 +375,22 @@ public class RecyclerViewSwipeManager {
         return true;
     }
 
-    private boolean handleActionMoveWhileNotSwiping(RecyclerView rv, MotionEvent e) {
+    private boolean handleActionMoveWhileNotSwiping(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         if (mCheckingTouchSlop == RecyclerView.NO_ID) {
             return false;
         }
 
-        if (Math.abs(e.getY() - mInitialTouchY) > mTouchSlop) {
+        if (info.exceedsTouchSlopY()) {
             // scrolling occurred
             mCheckingTouchSlop = RecyclerView.NO_ID;
             return false;
         }
 
-        if (Math.abs(e.getX() - mInitialTouchX) <= mTouchSlop) {
+        if (!info.exceedsTouchSlopX()) {
             return false;
         }
 
-        final RecyclerView.ViewHolder holder = CustomRecyclerViewUtils.findChildViewHolderUnderWithTranslation(rv, e.getX(), e.getY());
+        final RecyclerView.ViewHolder holder = info.findChildViewHolderUnderWithTranslation();
 
         if (holder == null || holder.getItemId() != mCheckingTouchSlop) {
             mCheckingTouchSlop = RecyclerView.NO_ID;
@@ -362,25 +408,50 @@ public class RecyclerViewSwipeManager {
 
     private void handleActionMoveWhileSwiping(MotionEvent e) {
         mLastTouchX = (int) (e.getX() + 0.5f);
+
+        // NOTE: the velocity tracker have to be fed every samples even if the item update is coalesced
         mVelocityTracker.addMovement(e);
+        mTouchPositionPredictor.addMovement(e);
 
-        final int swipeDistance = mLastTouchX - (mTouchedItemOffsetX + mSwipingItemMargins.left);
+        if (mTouchMoveCoalescingEnabled && mSwipingItemUpdateProcess != null) {
+            mSwipingItemUpdateProcess.schedule();
+        } else {
+            updateSwipingItem();
+        }
+    }
+
+    /*package*/ void updateSwipingItem() {
+        if (mSwipingItemOperator == null || !mSwipingItemOperator.isStarted()) {
+            return;
+        }
+
+        final int touchX = (mTouchPositionPredictor.isEnabled() && mTouchPositionPredictor.predict())
+                ? mTouchPositionPredictor.getPredictedX() : mLastTouchX;
+        final int swipeDistance = touchX - (mTouchedItemOffsetX + mSwipingItemMargins.left);
 
         mSwipingItemOperator.update(swipeDistance);
     }
 
+    private void cancelSwipingItemUpdate() {
+        if (mSwipingItemUpdateProcess != null) {
+            mSwipingItemUpdateProcess.cancel();
+        }
+    }
+
     private void startSwiping(RecyclerView rv, MotionEvent e, RecyclerView.ViewHolder holder) {
         mSwipingItem = holder;
         mLastTouchX = (int) (e.getX() + 0.5f);
         mTouchedItemOffsetX = mLastTouchX - holder.itemView.getLeft();
         CustomRecyclerViewUtils.getLayoutMargins(holder.itemView, mSwipingItemMargins);
 
-        mSwipingItemOperator = new SwipingItemOperator(this, mSwipingItem, mSwipingItemReactionType);
-        mSwipingItemOperator.start();
+        mSwipingItemOperator.start(mSwipingItem, mSwipingItemReactionType);
 
         mVelocityTracker.clear();
         mVelocityTracker.addMovement(e);
 
+        mTouchPositionPredictor.reset();
+        mTouchPositionPredictor.addMovement(e);
+
         // raise onSwipeItemStarted() event
         mAdapter.onSwipeItemStarted(this, holder);
     }
@@ -393,6 +464,8 @@ public class RecyclerViewSwipeManager {
         }
 
         mVelocityTracker.clear();
+        mTouchPositionPredictor.reset();
+        cancelSwipingItemUpdate();
 
         mSwipingItem = null;
         mLastTouchX = 0;
@@ -403,7 +476,6 @@ public class RecyclerViewSwipeManager {
 
         if (mSwipingItemOperator != null) {
             mSwipingItemOperator.finish();
-            mSwipingItemOperator = null;
         }
 
         final boolean toLeft = (result == RESULT_SWIPED_LEFT);
@@ -428,14 +500,13 @@ public class RecyclerViewSwipeManager {
 
                 final long removeAnimationDuration = (itemAnimator != null) ? itemAnimator.getRemoveDuration() : 0;
 
-                if (supportsViewPropertyAnimator()) {
+                if (supportsViewPropertyAnimator() && mDecoration != null) {
                     final long moveAnimationDuration = (itemAnimator != null) ? itemAnimator.getMoveDuration() : 0;
 
-                    final RemovingItemDecorator decorator = new RemovingItemDecorator(
-                            mRecyclerView, swipingItem, removeAnimationDuration, moveAnimationDuration);
+                    final RemovingItemDecorator decorator = obtainRemovingItemDecorator();
 
                     decorator.setMoveAnimationInterpolator(SwipeDismissItemAnimator.MOVE_INTERPOLATOR);
-                    decorator.start();
+                    decorator.start(swipingItem, removeAnimationDuration, moveAnimationDuration);
                 }
 
                 mItemSlideAnimator.slideToOutsideOfWindow(
@@ -451,6 +522,23 @@ public class RecyclerViewSwipeManager {
         }
     }
 
+    private RemovingItemDecorator obtainRemovingItemDecorator() {
+        final int count = mRemovingItemDecoratorPool.size();
+
+        if (count > 0) {
+            return mRemovingItemDecoratorPool.remove(count - 1);
+        }
+
+        return new RemovingItemDecorator(this, mDecoration, mRecyclerView);
+    }
+
+    /*package*/ void recycleRemovingItemDecorator(RemovingItemDecorator decorator) {
+        // NOTE: the decorators which outlived the release() are just discarded
+        if (mDecoration != null) {
+            mRemovingItemDecoratorPool.add(decorator);
+        }
+    }
+
     private static int correctAfterReaction(int result, int afterReaction) {
         if ((afterReaction == AFTER_SWIPE_REACTION_MOVE_TO_SWIPED_DIRECTION) ||
                 (afterReaction == AFTER_SWIPE_REACTION_REMOVE_ITEM)) {
@@ -498,6 +586,52 @@ public class RecyclerViewSwipeManager {
         mMoveToOutsideWindowAnimationDuration = moveToOutsideWindowAnimationDuration;
     }
 
+    /**
+     * Sets whether to coalesce the touch move events while swiping.
+     *
+     * If enabled, only the latest touch position is stored on each ACTION_MOVE event and the swiping item
+     * is updated once per frame. (The velocity tracker is still fed every events.)
+     *
+     * NOTE: This is disabled by default (opt-in). The item follows the touch position up to one frame later while
+     * this is enabled, so enable it only if the ACTION_MOVE events are delivered more often than the frames.
+     *
+     * @param enabled Whether the touch move coalescing is enabled (default: false)
+     */
+    public void setTouchMoveCoalescingEnabled(boolean enabled) {
+        if (!enabled) {
+            cancelSwipingItemUpdate();
+            if (isSwiping()) {
+                updateSwipingItem();
+            }
+        }
+        mTouchMoveCoalescingEnabled = enabled;
+    }
+
+    public boolean isTouchMoveCoalescingEnabled() {
+        return mTouchMoveCoalescingEnabled;
+    }
+
+    /**
+     * Sets how far ahead the position of the swiping item is predicted from the recent touch samples.
+     *
+     * The predicted position is used only for sliding the item, the swipe result is decided by
+     * the actual touch position and velocity.
+     *
+     * @param horizon Prediction horizon in milliseconds. Specify 0 to disable the prediction. (default: 0)
+     * @see TouchPositionPredictor#MAX_PREDICTION_HORIZON
+     */
+    public void setTouchPredictionHorizon(long horizon) {
+        mTouchPositionPredictor.setHorizon(horizon);
+    }
+
+    public long getTouchPredictionHorizon() {
+        return mTouchPositionPredictor.getHorizon();
+    }
+
+    /*package*/ RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
     /*package*/ void applySlideItem(RecyclerView.ViewHolder holder, float prevAmount, float amount, boolean shouldAnimate) {
         final SwipeableItemViewHolder holder2 = (SwipeableItemViewHolder) holder;
         final View itemView = holder.itemView;
@@ -537,4 +671,63 @@ public class RecyclerViewSwipeManager {
     private static boolean supportsViewPropertyAnimator() {
         return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
     }
+
+    private static class SwipingItemUpdateRunnable implements FrameCallbackCompat.Callback {
+        private final WeakReference<RecyclerViewSwipeManager> mHolderRef;
+        private final FrameCallbackCompat mFrameCallback;
+        private boolean mScheduled;
+
+        public SwipingItemUpdateRunnable(RecyclerViewSwipeManager holder) {
+            mHolderRef = new WeakReference<RecyclerViewSwipeManager>(holder);
+            mFrameCallback = new FrameCallbackCompat(this);
+        }
+
+        public void schedule() {
+            if (mScheduled) {
+                return;
+            }
+
+            final RecyclerViewSwipeManager holder = mHolderRef.get();
+            final RecyclerView rv = (holder != null) ? holder.getRecyclerView() : null;
+
+            if (rv == null) {
+                return;
+            }
+
+            mScheduled = true;
+            mFrameCallback.post(rv);
+        }
+
+        public void cancel() {
+            if (!mScheduled) {
+                return;
+            }
+
+            mScheduled = false;
+
+            final RecyclerViewSwipeManager holder = mHolderRef.get();
+
+            mFrameCallback.cancel((holder != null) ? holder.getRecyclerView() : null);
+        }
+
+        public void release() {
+            cancel();
+            mHolderRef.clear();
+        }
+
+        @Override
+        public void doFrame(long frameTime) {
+            if (!mScheduled) {
+                return;
+            }
+
+            mScheduled = false;
+
+            final RecyclerViewSwipeManager holder = mHolderRef.get();
+
+            if (holder != null) {
+                holder.updateSwipingItem();
+            }
+        }
+    }
 }
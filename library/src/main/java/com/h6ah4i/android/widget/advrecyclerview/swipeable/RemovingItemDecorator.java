@@ -24,11 +24,13 @@ import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.animation.Interpolator;
 
+import com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration;
 import com.h6ah4i.android.widget.advrecyclerview.utils.CustomRecyclerViewUtils;
+import com.h6ah4i.android.widget.advrecyclerview.utils.VisibleChildrenSnapshot;
 
 import java.lang.ref.WeakReference;
 
-class RemovingItemDecorator extends RecyclerView.ItemDecoration {
+class RemovingItemDecorator extends CompositeItemDecoration.Layer {
     @SuppressWarnings("unused")
     private static final String TAG = "RemovingItemDecorator";
 
@@ -37,11 +39,15 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
 
     private static final long ADDITIONAL_REMOVE_DURATION = 50;  // workaround: to avoid the gap between the below item
 
+    private RecyclerViewSwipeManager mSwipeManager;
+    private CompositeItemDecoration mHost;
     private RecyclerView mRecyclerView;
     private RecyclerView.ViewHolder mSwipingItem;
     private long mSwipingItemId;
     private Rect mSwipingItemMargins = new Rect();
     private Rect mSwipingItemBounds = new Rect();
+    private Rect mDrawnBackgroundBounds = new Rect();
+    private Rect mDirtyRect = new Rect();
     private int mInitialTranslationX;
     private int mTranslationY;
     private long mStartTime;
@@ -51,9 +57,29 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
     private Drawable mSwipeBackgroundDrawable;
 
     private int mPendingNotificationMask = 0;
-
-    public RemovingItemDecorator(RecyclerView rv, RecyclerView.ViewHolder swipingItem, long removeAnimationDuration, long moveAnimationDuration) {
+    private final DelayedNotificationRunner mRemovalEffectPhase1Notification;
+    private final DelayedNotificationRunner mRemovalEffectEndNotification;
+
+    // NOTE: This is drawn as a layer of the decoration which is installed by RecyclerViewSwipeManager,
+    // so starting or finishing the effect doesn't add or remove item decorations (it causes a layout pass).
+    // The instance is recycled by the manager after finished, see RecyclerViewSwipeManager.obtainRemovingItemDecorator().
+    public RemovingItemDecorator(RecyclerViewSwipeManager manager, CompositeItemDecoration host, RecyclerView rv) {
+        mSwipeManager = manager;
+        mHost = host;
         mRecyclerView = rv;
+        mRemovalEffectPhase1Notification = new DelayedNotificationRunner(this, NOTIFY_REMOVAL_EFFECT_PHASE_1);
+        mRemovalEffectEndNotification = new DelayedNotificationRunner(this, NOTIFY_REMOVAL_EFFECT_END);
+    }
+
+    public boolean isRunning() {
+        return (mSwipingItem != null);
+    }
+
+    public void start(RecyclerView.ViewHolder swipingItem, long removeAnimationDuration, long moveAnimationDuration) {
+        if (isRunning()) {
+            throw new IllegalStateException("The decorator is already running");
+        }
+
         mSwipingItem = swipingItem;
         mSwipingItemId = swipingItem.getItemId();
 
@@ -63,6 +89,19 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
 
         CustomRecyclerViewUtils.getLayoutMargins(mSwipingItem.itemView, mSwipingItemMargins);
         CustomRecyclerViewUtils.getViewBounds(mSwipingItem.itemView, mSwipingItemBounds);
+
+        final View containerView = ((SwipeableItemViewHolder) mSwipingItem).getSwipeableContainerView();
+
+        ViewCompat.animate(containerView).cancel();
+
+        mHost.addLayer(this);
+
+        mStartTime = System.currentTimeMillis();
+        mTranslationY = (int) (ViewCompat.getTranslationY(mSwipingItem.itemView) + 0.5f);
+        mSwipeBackgroundDrawable = mSwipingItem.itemView.getBackground();
+
+        postInvalidateOnAnimation();
+        notifyDelayed(NOTIFY_REMOVAL_EFFECT_PHASE_1, mRemoveAnimationDuration);
     }
 
     public void setMoveAnimationInterpolator(Interpolator interpolator) {
@@ -70,7 +109,7 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
     }
 
     @Override
-    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+    public void onDraw(Canvas c, RecyclerView parent, VisibleChildrenSnapshot children) {
         final long elapsedTime = getElapsedTime(mStartTime);
 
         final Rect bounds = mSwipingItemBounds;
@@ -122,17 +161,20 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
         }
 
         if ((height == 0) || (drawable == null)) {
+            mDrawnBackgroundBounds.setEmpty();
             return;
         }
 
         final int savedCount = c.save();
 
-        c.clipRect(
+        mDrawnBackgroundBounds.set(
                 bounds.left + translationX,
                 bounds.top + translationY,
                 bounds.right + translationX,
                 bounds.top + translationY + height);
 
+        c.clipRect(mDrawnBackgroundBounds);
+
         // c.drawColor(0xffff0000); // <-- debug
 
         c.translate(
@@ -149,29 +191,20 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
         final Rect bounds = mSwipingItemBounds;
         final int translationX = mInitialTranslationX;
         final int translationY = mTranslationY;
+        final Rect dirty = mDirtyRect;
 
-//        ViewCompat.postInvalidateOnAnimation(
-//                mRecyclerView,
-//                bounds.left + translationX,
-//                bounds.top + translationY,
-//                bounds.right + translationX,
-//                bounds.bottom + translationY);
-        ViewCompat.postInvalidateOnAnimation(mRecyclerView);
-    }
-
-    public void start() {
-        final View containerView = ((SwipeableItemViewHolder) mSwipingItem).getSwipeableContainerView();
-
-        ViewCompat.animate(containerView).cancel();
-
-        mRecyclerView.addItemDecoration(this);
+        // invalidate the union of the previously drawn background strip and the area it can shrink within
+        dirty.set(
+                bounds.left + translationX,
+                bounds.top + translationY,
+                bounds.right + translationX,
+                bounds.bottom + translationY);
 
-        mStartTime = System.currentTimeMillis();
-        mTranslationY = (int) (ViewCompat.getTranslationY(mSwipingItem.itemView) + 0.5f);
-        mSwipeBackgroundDrawable = mSwipingItem.itemView.getBackground();
+        if (!mDrawnBackgroundBounds.isEmpty()) {
+            dirty.union(mDrawnBackgroundBounds);
+        }
 
-        postInvalidateOnAnimation();
-        notifyDelayed(NOTIFY_REMOVAL_EFFECT_PHASE_1, mRemoveAnimationDuration);
+        ViewCompat.postInvalidateOnAnimation(mRecyclerView, dirty.left, dirty.top, dirty.right, dirty.bottom);
     }
 
     private void notifyDelayed(int code, long delay) {
@@ -183,7 +216,8 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
 
         mPendingNotificationMask |= mask;
 
-        final DelayedNotificationRunner notification = new DelayedNotificationRunner(this, code);
+        final DelayedNotificationRunner notification =
+                (code == NOTIFY_REMOVAL_EFFECT_PHASE_1) ? mRemovalEffectPhase1Notification : mRemovalEffectEndNotification;
         ViewCompat.postOnAnimationDelayed(mRecyclerView, notification, delay);
     }
 
@@ -209,13 +243,18 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
     }
 
     private void finish() {
-        mRecyclerView.removeItemDecoration(this);
+        mHost.removeLayer(this);
         postInvalidateOnAnimation(); // this is required to avoid remnant of the decoration
 
-        mRecyclerView = null;
         mSwipingItem = null;
+        mSwipingItemId = RecyclerView.NO_ID;
         mTranslationY = 0;
+        mStartTime = 0;
         mMoveAnimationInterpolator = null;
+        mSwipeBackgroundDrawable = null;
+        mDrawnBackgroundBounds.setEmpty();
+
+        mSwipeManager.recycleRemovingItemDecorator(this);
     }
 
     protected static long getElapsedTime(long initialTime) {
@@ -224,7 +263,8 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
     }
 
     private static class DelayedNotificationRunner implements Runnable {
-        private WeakReference<RemovingItemDecorator> mRefDecorator;
+        // NOTE: the runner is reused for every removal effect of the decorator, so the reference is never cleared
+        private final WeakReference<RemovingItemDecorator> mRefDecorator;
         private final int mCode;
 
         public DelayedNotificationRunner(RemovingItemDecorator decorator, int code) {
@@ -235,8 +275,6 @@ class RemovingItemDecorator extends RecyclerView.ItemDecoration {
         @Override
         public void run() {
             final RemovingItemDecorator decorator = mRefDecorator.get();
-            mRefDecorator.clear();
-            mRefDecorator = null;
 
             if (decorator != null) {
                 decorator.onDelayedNotification(mCode);
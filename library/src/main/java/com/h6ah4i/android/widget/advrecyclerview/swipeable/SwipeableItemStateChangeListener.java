@@ -0,0 +1,37 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.swipeable;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Optional interface for the adapter which implements {@link SwipeableItemAdapter}.
+ *
+ * If the adapter implements this interface, swipe state changes of the attached items are
+ * delivered via {@link #onSwipeStateFlagsChanged(android.support.v7.widget.RecyclerView.ViewHolder, int)}
+ * instead of re-binding them with onBindViewHolder().
+ */
+public interface SwipeableItemStateChangeListener<T extends RecyclerView.ViewHolder> {
+
+    /**
+     * Called when the swipe state flags of the attached item have been updated.
+     *
+     * @param holder The ViewHolder which is associated to the item.
+     * @param flags New swipe state flags. Same value as {@link SwipeableItemViewHolder#getSwipeStateFlags()}.
+     */
+    void onSwipeStateFlagsChanged(T holder, int flags);
+}
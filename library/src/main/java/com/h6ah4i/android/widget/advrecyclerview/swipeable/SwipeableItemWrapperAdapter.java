@@ -22,6 +22,7 @@ import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 
 import com.h6ah4i.android.widget.advrecyclerview.utils.BaseWrapperAdapter;
 import com.h6ah4i.android.widget.advrecyclerview.utils.WrapperAdapterUtils;
@@ -35,8 +36,24 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
     private static final boolean LOCAL_LOGD = false;
 
     private SwipeableItemAdapter mSwipeableItemAdapter;
+    private SwipeableItemStateChangeListener mSwipeableItemStateChangeListener;
     private RecyclerViewSwipeManager mSwipeManager;
     private int mSwipingItemPosition = RecyclerView.NO_POSITION;
+    private long mSwipingItemId = RecyclerView.NO_ID;
+    private boolean mPerformingAfterSwipeReaction;
+    private boolean mStructureChangedInAfterSwipeReaction;
+    private RecyclerView.ViewHolder mSwipeFinishedItem;
+    private ViewTreeObserver mDeferredUpdateObserver;
+    private final ViewTreeObserver.OnPreDrawListener mDeferredUpdateListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            final RecyclerView.ViewHolder finishedItem = mSwipeFinishedItem;
+
+            cancelDeferredUpdateAttachedItemStates();
+            updateAttachedItemStates(false, finishedItem);
+            return true;
+        }
+    };
 
     public SwipeableItemWrapperAdapter(RecyclerViewSwipeManager manager, RecyclerView.Adapter<VH> adapter) {
         super(adapter);
@@ -46,6 +63,8 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
             throw new IllegalArgumentException("adapter does not implement SwipeableItemAdapter");
         }
 
+        mSwipeableItemStateChangeListener = WrapperAdapterUtils.findWrappedAdapter(adapter, SwipeableItemStateChangeListener.class);
+
         if (manager == null) {
             throw new IllegalArgumentException("manager cannot be null");
         }
@@ -57,9 +76,13 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
     protected void onRelease() {
         super.onRelease();
 
+        cancelDeferredUpdateAttachedItemStates();
+
         mSwipeableItemAdapter = null;
+        mSwipeableItemStateChangeListener = null;
         mSwipeManager = null;
         mSwipingItemPosition = RecyclerView.NO_POSITION;
+        mSwipingItemId = RecyclerView.NO_ID;
     }
 
     @Override
@@ -79,6 +102,14 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
     }
 
+    @Override
+    public void onViewAttachedToWindow(VH holder) {
+        super.onViewAttachedToWindow(holder);
+
+        // NOTE: Cached views may be attached again without re-binding
+        updateItemState(holder, isSwiping());
+    }
+
     @Override
     public VH onCreateViewHolder(ViewGroup parent, int viewType) {
         final VH holder = super.onCreateViewHolder(parent, viewType);
@@ -113,7 +144,7 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         if (isSwiping()) {
             int flags = RecyclerViewSwipeManager.STATE_FLAG_SWIPING;
 
-            if (position == mSwipingItemPosition) {
+            if (isSwipingItem(holder, position)) {
                 flags |= RecyclerViewSwipeManager.STATE_FLAG_IS_ACTIVE;
             }
 
@@ -138,61 +169,121 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
     protected void onWrappedAdapterChanged() {
         super.onWrappedAdapterChanged();
 
+        onWrappedAdapterStructureChanged();
+
         if (isSwiping()) {
-            cancelSwipe();
-        } else {
-            notifyDataSetChanged();
+            // find the swiping item by its ID
+            final int position = findWrappedAdapterItemPosition(mSwipingItemId);
+
+            if (position == RecyclerView.NO_POSITION) {
+                // the swiping item has been removed
+                cancelSwipe();
+            } else {
+                mSwipingItemPosition = position;
+            }
         }
+
+        notifyDataSetChanged();
     }
 
     @Override
     protected void onWrappedAdapterItemRangeChanged(int positionStart, int itemCount) {
         super.onWrappedAdapterItemRangeChanged(positionStart, itemCount);
 
-        if (isSwiping()) {
-            cancelSwipe();
-        } else {
-            notifyItemRangeChanged(positionStart, itemCount);
-        }
+        // NOTE: the swiping item is kept in the swiping state even if it is changed
+        notifyItemRangeChanged(positionStart, itemCount);
     }
 
     @Override
     protected void onWrappedAdapterItemRangeInserted(int positionStart, int itemCount) {
         super.onWrappedAdapterItemRangeInserted(positionStart, itemCount);
 
-        if (isSwiping()) {
-            cancelSwipe();
-        } else {
-            notifyItemRangeInserted(positionStart, itemCount);
+        onWrappedAdapterStructureChanged();
+
+        if (isSwiping() && (positionStart <= mSwipingItemPosition)) {
+            mSwipingItemPosition += itemCount;
         }
+
+        notifyItemRangeInserted(positionStart, itemCount);
     }
 
     @Override
     protected void onWrappedAdapterItemRangeRemoved(int positionStart, int itemCount) {
         super.onWrappedAdapterItemRangeRemoved(positionStart, itemCount);
 
+        onWrappedAdapterStructureChanged();
+
         if (isSwiping()) {
-            cancelSwipe();
-        } else {
-            notifyItemRangeRemoved(positionStart, itemCount);
+            if (mSwipingItemPosition >= (positionStart + itemCount)) {
+                mSwipingItemPosition -= itemCount;
+            } else if (mSwipingItemPosition >= positionStart) {
+                // the swiping item has been removed
+                cancelSwipe();
+            }
         }
+
+        notifyItemRangeRemoved(positionStart, itemCount);
     }
 
     @Override
     protected void onWrappedAdapterRangeMoved(int fromPosition, int toPosition, int itemCount) {
         super.onWrappedAdapterRangeMoved(fromPosition, toPosition, itemCount);
 
+        onWrappedAdapterStructureChanged();
+
         if (isSwiping()) {
-            cancelSwipe();
+            if (itemCount != 1) {
+                onWrappedAdapterChanged();
+                return;
+            }
+
+            final int position = mSwipingItemPosition;
+
+            if (fromPosition == position) {
+                mSwipingItemPosition = toPosition;
+            } else if (fromPosition < position && toPosition >= position) {
+                mSwipingItemPosition = position - 1;
+            } else if (fromPosition > position && toPosition <= position) {
+                mSwipingItemPosition = position + 1;
+            }
+        }
+
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    private boolean isSwipingItem(RecyclerView.ViewHolder holder, int position) {
+        if (mSwipingItemId != RecyclerView.NO_ID) {
+            return (holder.getItemId() == mSwipingItemId);
         } else {
-            notifyItemMoved(fromPosition, toPosition);
+            return (position == mSwipingItemPosition);
+        }
+    }
+
+    private int findWrappedAdapterItemPosition(long itemId) {
+        if (itemId == RecyclerView.NO_ID) {
+            return RecyclerView.NO_POSITION;
         }
+
+        final RecyclerView.Adapter adapter = getWrappedAdapter();
+        final int itemCount = adapter.getItemCount();
+
+        for (int i = 0; i < itemCount; i++) {
+            if (adapter.getItemId(i) == itemId) {
+                return i;
+            }
+        }
+
+        return RecyclerView.NO_POSITION;
     }
 
     private void cancelSwipe() {
         if (mSwipeManager != null) {
             mSwipeManager.cancelSwipe();
         }
+
+        // NOTE: normally these are already cleared by onSwipeItemFinished()
+        mSwipingItemPosition = RecyclerView.NO_POSITION;
+        mSwipingItemId = RecyclerView.NO_ID;
     }
 
     // NOTE: This method is called from RecyclerViewDragDropManager
@@ -220,8 +311,12 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
 
         mSwipingItemPosition = holder.getPosition();
+        mSwipingItemId = holder.getItemId();
 
-        notifyDataSetChanged();
+        cancelDeferredUpdateAttachedItemStates();
+
+        // NOTE: Don't use notifyDataSetChanged() here, it re-binds all the visible items.
+        updateAttachedItemStates(true, null);
     }
 
     // NOTE: This method is called from RecyclerViewDragDropManager
@@ -231,6 +326,7 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
 
         mSwipingItemPosition = RecyclerView.NO_POSITION;
+        mSwipingItemId = RecyclerView.NO_ID;
 
         return mSwipeableItemAdapter.onSwipeItem(holder, result);
     }
@@ -241,8 +337,124 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         ((SwipeableItemViewHolder) holder).setAfterSwipeReaction(afterReaction);
         ((SwipeableItemViewHolder) holder).setSwipeItemSlideAmount(getSwipeAmountFromAfterReaction(result, afterReaction));
 
-        mSwipeableItemAdapter.onPerformAfterSwipeReaction(holder, result, afterReaction);
-        notifyDataSetChanged();
+        mPerformingAfterSwipeReaction = true;
+        mStructureChangedInAfterSwipeReaction = false;
+
+        try {
+            mSwipeableItemAdapter.onPerformAfterSwipeReaction(holder, result, afterReaction);
+        } finally {
+            mPerformingAfterSwipeReaction = false;
+        }
+
+        // clear state flags of the attached items (this have to be done after the reaction is applied,
+        // the fallback path re-binds the items with the updated data set)
+        if (mStructureChangedInAfterSwipeReaction) {
+            // positions of the attached items are not valid until the next layout pass
+            scheduleDeferredUpdateAttachedItemStates(holder);
+        } else {
+            updateAttachedItemStates(false, holder);
+        }
+    }
+
+    private void onWrappedAdapterStructureChanged() {
+        if (mPerformingAfterSwipeReaction) {
+            mStructureChangedInAfterSwipeReaction = true;
+        }
+    }
+
+    private void scheduleDeferredUpdateAttachedItemStates(RecyclerView.ViewHolder finishedItem) {
+        final RecyclerView rv = (mSwipeManager != null) ? mSwipeManager.getRecyclerView() : null;
+
+        cancelDeferredUpdateAttachedItemStates();
+
+        if (rv == null) {
+            return;
+        }
+
+        mSwipeFinishedItem = finishedItem;
+        mDeferredUpdateObserver = rv.getViewTreeObserver();
+        mDeferredUpdateObserver.addOnPreDrawListener(mDeferredUpdateListener);
+    }
+
+    private void cancelDeferredUpdateAttachedItemStates() {
+        if (mDeferredUpdateObserver != null && mDeferredUpdateObserver.isAlive()) {
+            mDeferredUpdateObserver.removeOnPreDrawListener(mDeferredUpdateListener);
+        }
+
+        mDeferredUpdateObserver = null;
+        mSwipeFinishedItem = null;
+    }
+
+    // NOTE: the slide amount of the finishedItem is not re-applied, it is being animated by the swipe manager
+    private void updateAttachedItemStates(boolean swiping, RecyclerView.ViewHolder finishedItem) {
+        final RecyclerView rv = (mSwipeManager != null) ? mSwipeManager.getRecyclerView() : null;
+
+        if (rv == null) {
+            return;
+        }
+
+        final int childCount = rv.getChildCount();
+
+        for (int i = 0; i < childCount; i++) {
+            final View child = rv.getChildAt(i);
+
+            // NOTE: the removed items are still attached while they are animated
+            if (((RecyclerView.LayoutParams) child.getLayoutParams()).isItemRemoved()) {
+                continue;
+            }
+
+            final RecyclerView.ViewHolder holder = rv.getChildViewHolder(child);
+
+            updateItemState(holder, swiping, (holder != finishedItem));
+        }
+    }
+
+    private void updateItemState(RecyclerView.ViewHolder holder, boolean swiping) {
+        updateItemState(holder, swiping, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateItemState(RecyclerView.ViewHolder holder, boolean swiping, boolean applySlide) {
+        if (!(holder instanceof SwipeableItemViewHolder)) {
+            return;
+        }
+
+        final int position = holder.getPosition();
+
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        int flags = 0;
+
+        if (swiping) {
+            flags |= RecyclerViewSwipeManager.STATE_FLAG_SWIPING;
+
+            if (isSwipingItem(holder, position)) {
+                flags |= RecyclerViewSwipeManager.STATE_FLAG_IS_ACTIVE;
+            }
+        }
+
+        if (!safeUpdateFlags(holder, flags)) {
+            return;
+        }
+
+        final SwipeableItemViewHolder holder2 = (SwipeableItemViewHolder) holder;
+
+        if (mSwipeableItemStateChangeListener != null) {
+            mSwipeableItemStateChangeListener.onSwipeStateFlagsChanged(holder, holder2.getSwipeStateFlags());
+        } else {
+            // fallback: re-bind only this item (no layout pass is involved)
+            final float prevSwipeItemSlideAmount = holder2.getSwipeItemSlideAmount();
+
+            super.onBindViewHolder((VH) holder, position);
+
+            final float swipeItemSlideAmount = holder2.getSwipeItemSlideAmount();
+
+            if (applySlide && (prevSwipeItemSlideAmount != swipeItemSlideAmount)) {
+                mSwipeManager.applySlideItem(holder, prevSwipeItemSlideAmount, swipeItemSlideAmount, true);
+            }
+        }
     }
 
     protected boolean isSwiping() {
@@ -263,9 +475,9 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
     }
 
-    private static void safeUpdateFlags(RecyclerView.ViewHolder holder, int flags) {
+    private static boolean safeUpdateFlags(RecyclerView.ViewHolder holder, int flags) {
         if (!(holder instanceof SwipeableItemViewHolder)) {
-            return;
+            return false;
         }
 
         final SwipeableItemViewHolder holder2 = (SwipeableItemViewHolder) holder;
@@ -279,6 +491,8 @@ public class SwipeableItemWrapperAdapter<VH extends RecyclerView.ViewHolder> ext
         }
 
         ((SwipeableItemViewHolder) holder).setSwipeStateFlags(flags);
+
+        return ((flags & RecyclerViewSwipeManager.STATE_FLAG_IS_UPDATED) != 0);
     }
 
     private static SwipeableItemAdapter getSwipeableItemAdapter(RecyclerView.Adapter adapter) {
@@ -42,8 +42,12 @@ class SwipingItemOperator {
     private int mSwipeDistance;
     private float mPrevTranslateAmount;
 
-    public SwipingItemOperator(RecyclerViewSwipeManager manager, RecyclerView.ViewHolder swipingItem, int swipeReactionType) {
+    // NOTE: This operator is created once per RecyclerViewSwipeManager and reused for every swipe (see start() / finish())
+    public SwipingItemOperator(RecyclerViewSwipeManager manager) {
         mSwipeManager = manager;
+    }
+
+    public void start(RecyclerView.ViewHolder swipingItem, int swipeReactionType) {
         mSwipingItem = swipingItem;
         mLeftSwipeReactionType = SwipeReactionUtils.extractLeftReaction(swipeReactionType);
         mRightSwipeReactionType = SwipeReactionUtils.extractRightReaction(swipeReactionType);
@@ -53,13 +57,13 @@ class SwipingItemOperator {
         mInvSwipingItemWidth = (mSwipingItemWidth != 0) ? (1.0f / mSwipingItemWidth) : 0.0f;
     }
 
-    public void start() {
-        // nothing to do here.
+    public boolean isStarted() {
+        return (mSwipingItem != null);
     }
 
     public void finish() {
-        mSwipeManager = null;
         mSwipingItem = null;
+        mSwipingItemContainerView = null;
         mSwipeDistance = 0;
         mSwipingItemWidth = 0;
         mInvSwipingItemWidth = 0;
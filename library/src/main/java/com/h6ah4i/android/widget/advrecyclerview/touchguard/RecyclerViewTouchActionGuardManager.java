@@ -20,7 +20,8 @@ import android.support.v4.view.MotionEventCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.MotionEvent;
-import android.view.ViewConfiguration;
+
+import com.h6ah4i.android.widget.advrecyclerview.utils.RecyclerViewGestureDispatcher;
 
 public class RecyclerViewTouchActionGuardManager {
     private static final String TAG = "RecyclerViewScrollGuardManager";
@@ -28,31 +29,33 @@ public class RecyclerViewTouchActionGuardManager {
     private static final boolean LOCAL_LOGV = false;
     private static final boolean LOCAL_LOGD = false;
 
-    private RecyclerView.OnItemTouchListener mInternalUseOnItemTouchListener;
+    private RecyclerViewGestureDispatcher.GestureHandler mInternalUseGestureHandler;
     private RecyclerView mRecyclerView;
     private boolean mGuarding;
-    private int mInitialTouchY;
-    private int mLastTouchY;
-    private int mTouchSlop;
     private boolean mEnabled;
     private boolean mInterceptScrollingWhileAnimationRunning;
 
     public RecyclerViewTouchActionGuardManager() {
-        mInternalUseOnItemTouchListener = new RecyclerView.OnItemTouchListener() {
+        mInternalUseGestureHandler = new RecyclerViewGestureDispatcher.GestureHandler() {
             @Override
-            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
-                return RecyclerViewTouchActionGuardManager.this.onInterceptTouchEvent(rv, e);
+            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                return RecyclerViewTouchActionGuardManager.this.onInterceptTouchEvent(rv, e, info);
             }
 
             @Override
-            public void onTouchEvent(RecyclerView rv, MotionEvent e) {
-                RecyclerViewTouchActionGuardManager.this.onTouchEvent(rv, e);
+            public void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+                RecyclerViewTouchActionGuardManager.this.onTouchEvent(rv, e, info);
+            }
+
+            @Override
+            public void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+                RecyclerViewTouchActionGuardManager.this.onGestureInterceptedByOtherHandler(rv);
             }
         };
     }
 
     public boolean isReleased() {
-        return (mInternalUseOnItemTouchListener == null);
+        return (mInternalUseGestureHandler == null);
     }
 
     public void attachRecyclerView(RecyclerView rv) {
@@ -69,20 +72,19 @@ public class RecyclerViewTouchActionGuardManager {
         }
 
         mRecyclerView = rv;
-        mRecyclerView.addOnItemTouchListener(mInternalUseOnItemTouchListener);
-
-        mTouchSlop = ViewConfiguration.get(rv.getContext()).getScaledTouchSlop();
+        RecyclerViewGestureDispatcher.addGestureHandler(
+                mRecyclerView, mInternalUseGestureHandler, RecyclerViewGestureDispatcher.PRIORITY_TOUCH_ACTION_GUARD);
     }
 
     public void release() {
-        if (mRecyclerView != null && mInternalUseOnItemTouchListener != null) {
-            mRecyclerView.removeOnItemTouchListener(mInternalUseOnItemTouchListener);
+        if (mRecyclerView != null && mInternalUseGestureHandler != null) {
+            RecyclerViewGestureDispatcher.removeGestureHandler(mRecyclerView, mInternalUseGestureHandler);
         }
-        mInternalUseOnItemTouchListener = null;
+        mInternalUseGestureHandler = null;
         mRecyclerView = null;
     }
 
-    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         if (!mEnabled) {
             return false;
         }
@@ -100,11 +102,11 @@ public class RecyclerViewTouchActionGuardManager {
                 break;
 
             case MotionEvent.ACTION_DOWN:
-                handleActionDown(e);
+                handleActionDown();
                 break;
 
             case MotionEvent.ACTION_MOVE:
-                if (handleActionMove(rv, e)) {
+                if (handleActionMove(rv, info)) {
                     return true;
                 }
                 break;
@@ -113,7 +115,7 @@ public class RecyclerViewTouchActionGuardManager {
         return false;
     }
 
-    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e) {
+    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e, RecyclerViewGestureDispatcher.TouchEventInfo info) {
         if (!mEnabled) {
             return;
         }
@@ -132,13 +134,13 @@ public class RecyclerViewTouchActionGuardManager {
         }
     }
 
-    private boolean handleActionMove(RecyclerView rv, MotionEvent e) {
-        if (!mGuarding) {
-            mLastTouchY = (int) (e.getY() + 0.5f);
-
-            final int distance = mLastTouchY - mInitialTouchY;
+    /*package*/ void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+        mGuarding = false;
+    }
 
-            if (mInterceptScrollingWhileAnimationRunning && (Math.abs(distance) > mTouchSlop) && isAnimationRunning(rv)) {
+    private boolean handleActionMove(RecyclerView rv, RecyclerViewGestureDispatcher.TouchEventInfo info) {
+        if (!mGuarding) {
+            if (mInterceptScrollingWhileAnimationRunning && info.exceedsTouchSlopY() && isAnimationRunning(rv)) {
                 // intercept vertical move touch events while animation is running
                 mGuarding = true;
             }
@@ -154,12 +156,9 @@ public class RecyclerViewTouchActionGuardManager {
 
     private void handleActionUpOrCancel() {
         mGuarding = false;
-        mInitialTouchY = 0;
-        mLastTouchY = 0;
     }
 
-    private void handleActionDown(MotionEvent e) {
-        mInitialTouchY = mLastTouchY = (int) (e.getY() + 0.5f);
+    private void handleActionDown() {
         mGuarding = false;
     }
 
@@ -17,17 +17,62 @@
 package com.h6ah4i.android.widget.advrecyclerview.utils;
 
 import android.graphics.Rect;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.view.View;
 import android.view.ViewGroup;
 
 public class CustomRecyclerViewUtils {
+    public static final int ORIENTATION_UNKNOWN = -1;
+    public static final int ORIENTATION_HORIZONTAL = 0; // == LinearLayoutManager.HORIZONTAL
+    public static final int ORIENTATION_VERTICAL = 1; // == LinearLayoutManager.VERTICAL
+
+    public static final int LAYOUT_TYPE_UNKNOWN = -1;
+    public static final int LAYOUT_TYPE_LINEAR_HORIZONTAL = 0;
+    public static final int LAYOUT_TYPE_LINEAR_VERTICAL = 1;
+    public static final int LAYOUT_TYPE_GRID_HORIZONTAL = 2;
+    public static final int LAYOUT_TYPE_GRID_VERTICAL = 3;
+    public static final int LAYOUT_TYPE_STAGGERED_GRID_HORIZONTAL = 4;
+    public static final int LAYOUT_TYPE_STAGGERED_GRID_VERTICAL = 5;
+
+    private static final int MIN_CHILD_COUNT_FOR_BINARY_SEARCH = 8;
+
     public static RecyclerView.ViewHolder findChildViewHolderUnderWithoutTranslation(RecyclerView rv, float x, float y) {
         final View child = findChildViewUnderWithoutTranslation(rv, x, y);
         return (child != null) ? rv.getChildViewHolder(child) : null;
     }
 
-    private static View findChildViewUnderWithoutTranslation(ViewGroup parent, float x, float y) {
+    public static View findChildViewUnderWithoutTranslation(RecyclerView rv, float x, float y) {
+        final int layoutType = getLayoutType(rv);
+
+        if ((rv.getChildCount() >= MIN_CHILD_COUNT_FOR_BINARY_SEARCH) && isOrderedLayout(rv, layoutType)) {
+            final boolean horizontal = (extractOrientation(layoutType) == ORIENTATION_HORIZONTAL);
+            return findChildViewUnderByBinarySearch(rv, x, y, horizontal);
+        } else {
+            return findChildViewUnderByLinearSearch(rv, x, y);
+        }
+    }
+
+    /**
+     * Checks whether the child views of the RecyclerView are ordered by their adapter positions.
+     * (Required to binary-search the children)
+     */
+    public static boolean isOrderedLayout(RecyclerView rv, int layoutType) {
+        // NOTE: items of the staggered grid are not ordered by their positions
+        if (!(layoutType == LAYOUT_TYPE_LINEAR_HORIZONTAL || layoutType == LAYOUT_TYPE_LINEAR_VERTICAL ||
+                layoutType == LAYOUT_TYPE_GRID_HORIZONTAL || layoutType == LAYOUT_TYPE_GRID_VERTICAL)) {
+            return false;
+        }
+
+        // NOTE: disappearing views are added to the RecyclerView out of order while item animations are running
+        final RecyclerView.ItemAnimator itemAnimator = rv.getItemAnimator();
+
+        return !((itemAnimator != null) && itemAnimator.isRunning());
+    }
+
+    /*package*/ static View findChildViewUnderByLinearSearch(ViewGroup parent, float x, float y) {
         final int count = parent.getChildCount();
         for (int i = count - 1; i >= 0; i--) {
             final View child = parent.getChildAt(i);
@@ -41,6 +86,77 @@ public class CustomRecyclerViewUtils {
         return null;
     }
 
+    /**
+     * Same as {@link #findChildViewUnderByLinearSearch(ViewGroup, float, float)}, but the children have to be
+     * laid out in rows (or columns) which do not overlap each other, in order of the child index. (The order can be reversed.)
+     */
+    /*package*/ static View findChildViewUnderByBinarySearch(ViewGroup parent, float x, float y, boolean horizontal) {
+        final int count = parent.getChildCount();
+
+        if (count == 0) {
+            return null;
+        }
+
+        final float pos = (horizontal) ? x : y;
+        final boolean ascending = (getStart(parent.getChildAt(0), horizontal) <= getStart(parent.getChildAt(count - 1), horizontal));
+
+        // find the last row which starts before the touch point
+        // (n: the n-th child in ascending order of the start position)
+        int lo = 0;
+        int hi = count - 1;
+        int candidate = -1;
+
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final View child = parent.getChildAt((ascending) ? mid : (count - 1 - mid));
+
+            if (getStart(child, horizontal) <= pos) {
+                candidate = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        if (candidate < 0) {
+            return null;
+        }
+
+        final int rowStart = getStart(parent.getChildAt((ascending) ? candidate : (count - 1 - candidate)), horizontal);
+        View found = null;
+        int foundIndex = -1;
+
+        // check the items of the row, the top-most (largest index) one is preferred as same as the linear search
+        for (int n = candidate; n >= 0; n--) {
+            final int index = (ascending) ? n : (count - 1 - n);
+            final View child = parent.getChildAt(index);
+
+            if ((getStart(child, horizontal) < rowStart) && (getEnd(child, horizontal) < pos)) {
+                // reached the previous row
+                break;
+            }
+
+            if (index > foundIndex &&
+                    x >= child.getLeft() &&
+                    x <= child.getRight() &&
+                    y >= child.getTop() &&
+                    y <= child.getBottom()) {
+                found = child;
+                foundIndex = index;
+            }
+        }
+
+        return found;
+    }
+
+    private static int getStart(View v, boolean horizontal) {
+        return (horizontal) ? v.getLeft() : v.getTop();
+    }
+
+    private static int getEnd(View v, boolean horizontal) {
+        return (horizontal) ? v.getRight() : v.getBottom();
+    }
+
     public static RecyclerView.ViewHolder findChildViewHolderUnderWithTranslation(RecyclerView rv, float x, float y) {
         final View child = rv.findChildViewUnder(x, y);
         return (child != null) ? rv.getChildViewHolder(child) : null;
@@ -76,4 +192,85 @@ public class CustomRecyclerViewUtils {
         outBounds.bottom = v.getBottom();
         return outBounds;
     }
+
+    public static int getLayoutType(RecyclerView rv) {
+        return getLayoutType(rv.getLayoutManager());
+    }
+
+    public static int getLayoutType(RecyclerView.LayoutManager layoutManager) {
+        // NOTE: GridLayoutManager extends LinearLayoutManager
+        if (layoutManager instanceof GridLayoutManager) {
+            return (((GridLayoutManager) layoutManager).getOrientation() == GridLayoutManager.HORIZONTAL)
+                    ? LAYOUT_TYPE_GRID_HORIZONTAL : LAYOUT_TYPE_GRID_VERTICAL;
+        } else if (layoutManager instanceof LinearLayoutManager) {
+            return (((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.HORIZONTAL)
+                    ? LAYOUT_TYPE_LINEAR_HORIZONTAL : LAYOUT_TYPE_LINEAR_VERTICAL;
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return (((StaggeredGridLayoutManager) layoutManager).getOrientation() == StaggeredGridLayoutManager.HORIZONTAL)
+                    ? LAYOUT_TYPE_STAGGERED_GRID_HORIZONTAL : LAYOUT_TYPE_STAGGERED_GRID_VERTICAL;
+        } else {
+            return LAYOUT_TYPE_UNKNOWN;
+        }
+    }
+
+    public static int extractOrientation(int layoutType) {
+        switch (layoutType) {
+            case LAYOUT_TYPE_LINEAR_HORIZONTAL:
+            case LAYOUT_TYPE_GRID_HORIZONTAL:
+            case LAYOUT_TYPE_STAGGERED_GRID_HORIZONTAL:
+                return ORIENTATION_HORIZONTAL;
+            case LAYOUT_TYPE_LINEAR_VERTICAL:
+            case LAYOUT_TYPE_GRID_VERTICAL:
+            case LAYOUT_TYPE_STAGGERED_GRID_VERTICAL:
+                return ORIENTATION_VERTICAL;
+            default:
+                return ORIENTATION_UNKNOWN;
+        }
+    }
+
+    public static boolean isLinearLayout(int layoutType) {
+        return (layoutType == LAYOUT_TYPE_LINEAR_HORIZONTAL) || (layoutType == LAYOUT_TYPE_LINEAR_VERTICAL);
+    }
+
+    /**
+     * Checks whether the items are dragged along the scrolling axis and swapped with the neighbor items, as same as
+     * the linear layout.
+     *
+     * NOTE: Unknown layout managers are handled in this way, but only conservatively. The children are not assumed
+     * to be ordered by their positions, so they are swapped only with the adjacent items, and the dragging item is
+     * not clamped by the last child. (check {@link #isLinearLayout(int)} for these optimizations)
+     */
+    public static boolean isLinearLikeLayout(int layoutType) {
+        return isLinearLayout(layoutType) || (layoutType == LAYOUT_TYPE_UNKNOWN);
+    }
+
+    /**
+     * Gets the orientation of the layout. The orientation of unknown layout managers is determined by
+     * the scrollable direction. (vertical if it can't be determined)
+     */
+    public static int getOrientation(RecyclerView rv) {
+        final int orientation = extractOrientation(getLayoutType(rv));
+
+        if (orientation != ORIENTATION_UNKNOWN) {
+            return orientation;
+        }
+
+        final RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+
+        if ((layoutManager != null) && layoutManager.canScrollHorizontally() && !layoutManager.canScrollVertically()) {
+            return ORIENTATION_HORIZONTAL;
+        } else {
+            return ORIENTATION_VERTICAL;
+        }
+    }
+
+    public static boolean isReverseLayout(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            return ((LinearLayoutManager) layoutManager).getReverseLayout();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getReverseLayout();
+        } else {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.utils;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Posts a callback which is called at the next frame.
+ *
+ * Uses {@link Choreographer} on Jelly Bean or later (the callback is called before the frame is laid out and drawn),
+ * and falls back to {@link ViewCompat#postOnAnimation(View, Runnable)} on the older platforms.
+ */
+public class FrameCallbackCompat {
+    public interface Callback {
+        /**
+         * Called at the frame.
+         *
+         * @param frameTimeMillis The frame time in {@link SystemClock#uptimeMillis()} time base
+         */
+        void doFrame(long frameTimeMillis);
+    }
+
+    private final ChoreographerFrameCallback mFrameCallback;
+    private final Runnable mRunnable;
+
+    public FrameCallbackCompat(final Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback cannot be null");
+        }
+
+        if (supportsChoreographer()) {
+            mFrameCallback = new ChoreographerFrameCallback(callback);
+            mRunnable = null;
+        } else {
+            mFrameCallback = null;
+            mRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    callback.doFrame(SystemClock.uptimeMillis());
+                }
+            };
+        }
+    }
+
+    /**
+     * Posts the callback. Call {@link #cancel(View)} before re-posting it, otherwise it may be called twice.
+     *
+     * @param view The view which hosts the callback (only used on the platforms prior to Jelly Bean)
+     */
+    public void post(View view) {
+        if (mFrameCallback != null) {
+            mFrameCallback.post();
+        } else {
+            ViewCompat.postOnAnimation(view, mRunnable);
+        }
+    }
+
+    /**
+     * Removes the pending callback.
+     *
+     * @param view The view which has been passed to {@link #post(View)}
+     */
+    public void cancel(View view) {
+        if (mFrameCallback != null) {
+            mFrameCallback.cancel();
+        } else if (view != null) {
+            view.removeCallbacks(mRunnable);
+        }
+    }
+
+    private static boolean supportsChoreographer() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerFrameCallback implements Choreographer.FrameCallback {
+        private final Callback mCallback;
+
+        public ChoreographerFrameCallback(Callback callback) {
+            mCallback = callback;
+        }
+
+        public void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        public void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mCallback.doFrame(frameTimeNanos / 1000000);
+        }
+    }
+}
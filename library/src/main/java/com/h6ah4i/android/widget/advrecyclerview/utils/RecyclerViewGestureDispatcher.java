@@ -0,0 +1,389 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.utils;
+
+import android.support.v4.view.MotionEventCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dispatches the touch events of a RecyclerView to the registered gesture handlers in priority order.
+ *
+ * Only one OnItemTouchListener is registered to the RecyclerView, and the touched item and the distance
+ * from the ACTION_DOWN point are calculated (at most) once per event and shared by all of the handlers.
+ */
+public class RecyclerViewGestureDispatcher {
+    // NOTE: smaller value means higher priority
+    public static final int PRIORITY_TOUCH_ACTION_GUARD = 100;
+    public static final int PRIORITY_SWIPE = 200;
+    public static final int PRIORITY_DRAG_AND_DROP = 300;
+
+    // NOTE:
+    // The values are weak references, the dispatcher is kept alive by the RecyclerView (through its OnItemTouchListener).
+    // The dispatcher references the handlers and the handlers usually reference the RecyclerView, so holding
+    // the dispatcher strongly here would keep the RecyclerView alive forever.
+    private static final Map<RecyclerView, WeakReference<RecyclerViewGestureDispatcher>> sDispatchers =
+            new WeakHashMap<RecyclerView, WeakReference<RecyclerViewGestureDispatcher>>();
+
+    /**
+     * The gesture handler.
+     *
+     * NOTE: Extend {@link SimpleGestureHandler} instead of implementing this interface directly,
+     * so the handler won't be broken when a method is added to this interface.
+     */
+    public interface GestureHandler {
+        /**
+         * Same as {@link RecyclerView.OnItemTouchListener#onInterceptTouchEvent(RecyclerView, MotionEvent)}.
+         * If this method returns true, the following events of the gesture are delivered only to this handler's
+         * {@link #onTouchEvent(RecyclerView, MotionEvent, TouchEventInfo)}.
+         */
+        boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, TouchEventInfo info);
+
+        void onTouchEvent(RecyclerView rv, MotionEvent e, TouchEventInfo info);
+
+        /**
+         * Called when another handler has intercepted the gesture. The following events of the gesture are
+         * not delivered to this handler, so the resources prepared for the gesture should be released here.
+         */
+        void onGestureInterceptedByOtherHandler(RecyclerView rv);
+    }
+
+    /**
+     * An implementation of {@link GestureHandler} that has empty method bodies
+     * (and never intercepts the gestures) by default.
+     */
+    public static abstract class SimpleGestureHandler implements GestureHandler {
+        @Override
+        public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e, TouchEventInfo info) {
+            return false;
+        }
+
+        @Override
+        public void onTouchEvent(RecyclerView rv, MotionEvent e, TouchEventInfo info) {
+        }
+
+        @Override
+        public void onGestureInterceptedByOtherHandler(RecyclerView rv) {
+        }
+    }
+
+    /**
+     * Per-event information shared by the gesture handlers. (Only valid while dispatching the event)
+     */
+    public static class TouchEventInfo {
+        private RecyclerView mRecyclerView;
+        private int mAction;
+        private int mTouchSlop;
+        private int mDownX;
+        private int mDownY;
+        private int mX;
+        private int mY;
+        private float mRawEventX;
+        private float mRawEventY;
+
+        private boolean mChildUnderFound;
+        private boolean mChildUnderWithTranslationFound;
+        private RecyclerView.ViewHolder mChildUnder;
+        private RecyclerView.ViewHolder mChildUnderWithTranslation;
+
+        public int getActionMasked() {
+            return mAction;
+        }
+
+        public int getTouchSlop() {
+            return mTouchSlop;
+        }
+
+        public int getDownX() {
+            return mDownX;
+        }
+
+        public int getDownY() {
+            return mDownY;
+        }
+
+        public int getX() {
+            return mX;
+        }
+
+        public int getY() {
+            return mY;
+        }
+
+        /**
+         * @return Horizontal distance from the ACTION_DOWN point
+         */
+        public int getDeltaX() {
+            return mX - mDownX;
+        }
+
+        /**
+         * @return Vertical distance from the ACTION_DOWN point
+         */
+        public int getDeltaY() {
+            return mY - mDownY;
+        }
+
+        public boolean exceedsTouchSlopX() {
+            return Math.abs(getDeltaX()) > mTouchSlop;
+        }
+
+        public boolean exceedsTouchSlopY() {
+            return Math.abs(getDeltaY()) > mTouchSlop;
+        }
+
+        /**
+         * Finds the view holder of the child view under the touch point. Translation of the child views is not applied.
+         */
+        public RecyclerView.ViewHolder findChildViewHolderUnder() {
+            if (!mChildUnderFound && mRecyclerView != null) {
+                mChildUnderFound = true;
+                mChildUnder = CustomRecyclerViewUtils.findChildViewHolderUnderWithoutTranslation(mRecyclerView, mRawEventX, mRawEventY);
+            }
+            return mChildUnder;
+        }
+
+        /**
+         * Same as {@link #findChildViewHolderUnder()}, but translation of the child views is applied.
+         */
+        public RecyclerView.ViewHolder findChildViewHolderUnderWithTranslation() {
+            if (!mChildUnderWithTranslationFound && mRecyclerView != null) {
+                mChildUnderWithTranslationFound = true;
+                mChildUnderWithTranslation = CustomRecyclerViewUtils.findChildViewHolderUnderWithTranslation(mRecyclerView, mRawEventX, mRawEventY);
+            }
+            return mChildUnderWithTranslation;
+        }
+
+        /*package*/ void set(RecyclerView rv, MotionEvent e, int touchSlop) {
+            mRecyclerView = rv;
+            mAction = MotionEventCompat.getActionMasked(e);
+            mTouchSlop = touchSlop;
+            mRawEventX = e.getX();
+            mRawEventY = e.getY();
+            mX = (int) (mRawEventX + 0.5f);
+            mY = (int) (mRawEventY + 0.5f);
+            mChildUnderFound = false;
+            mChildUnderWithTranslationFound = false;
+            mChildUnder = null;
+            mChildUnderWithTranslation = null;
+
+            if (mAction == MotionEvent.ACTION_DOWN) {
+                mDownX = mX;
+                mDownY = mY;
+            }
+        }
+
+        /*package*/ void clear() {
+            mRecyclerView = null;
+            mChildUnderFound = false;
+            mChildUnderWithTranslationFound = false;
+            mChildUnder = null;
+            mChildUnderWithTranslation = null;
+        }
+    }
+
+    private static class HandlerEntry {
+        public final GestureHandler mHandler;
+        public final int mPriority;
+
+        public HandlerEntry(GestureHandler handler, int priority) {
+            mHandler = handler;
+            mPriority = priority;
+        }
+    }
+
+    private final RecyclerView.OnItemTouchListener mInternalUseOnItemTouchListener;
+    private final ArrayList<HandlerEntry> mHandlers = new ArrayList<HandlerEntry>();
+    private final TouchEventInfo mTouchEventInfo = new TouchEventInfo();
+    private final int mTouchSlop;
+    private GestureHandler mActiveHandler;
+
+    private RecyclerViewGestureDispatcher(RecyclerView rv) {
+        mTouchSlop = ViewConfiguration.get(rv.getContext()).getScaledTouchSlop();
+        mInternalUseOnItemTouchListener = new RecyclerView.OnItemTouchListener() {
+            @Override
+            public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+                return RecyclerViewGestureDispatcher.this.onInterceptTouchEvent(rv, e);
+            }
+
+            @Override
+            public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+                RecyclerViewGestureDispatcher.this.onTouchEvent(rv, e);
+            }
+        };
+    }
+
+    /**
+     * Registers the gesture handler to the dispatcher of the specified RecyclerView. The dispatcher is
+     * created and attached to the RecyclerView if it does not exist yet.
+     *
+     * @param rv The RecyclerView
+     * @param handler The gesture handler
+     * @param priority Priority of the handler. Smaller value means higher priority.
+     *                 (Handlers which have the same priority are called in the registered order.)
+     */
+    public static void addGestureHandler(RecyclerView rv, GestureHandler handler, int priority) {
+        if (rv == null) {
+            throw new IllegalArgumentException("RecyclerView cannot be null");
+        }
+
+        if (handler == null) {
+            throw new IllegalArgumentException("handler cannot be null");
+        }
+
+        RecyclerViewGestureDispatcher dispatcher = getDispatcher(rv);
+
+        if (dispatcher == null) {
+            dispatcher = new RecyclerViewGestureDispatcher(rv);
+            rv.addOnItemTouchListener(dispatcher.mInternalUseOnItemTouchListener);
+            sDispatchers.put(rv, new WeakReference<RecyclerViewGestureDispatcher>(dispatcher));
+        }
+
+        dispatcher.addHandler(handler, priority);
+    }
+
+    /**
+     * Unregisters the gesture handler. The dispatcher is detached from the RecyclerView when
+     * the last handler is removed.
+     */
+    public static void removeGestureHandler(RecyclerView rv, GestureHandler handler) {
+        if (rv == null || handler == null) {
+            return;
+        }
+
+        final RecyclerViewGestureDispatcher dispatcher = getDispatcher(rv);
+
+        if (dispatcher == null) {
+            return;
+        }
+
+        dispatcher.removeHandler(handler);
+
+        if (dispatcher.mHandlers.isEmpty()) {
+            rv.removeOnItemTouchListener(dispatcher.mInternalUseOnItemTouchListener);
+            sDispatchers.remove(rv);
+        }
+    }
+
+    private static RecyclerViewGestureDispatcher getDispatcher(RecyclerView rv) {
+        final WeakReference<RecyclerViewGestureDispatcher> ref = sDispatchers.get(rv);
+        return (ref != null) ? ref.get() : null;
+    }
+
+    private void addHandler(GestureHandler handler, int priority) {
+        final int count = mHandlers.size();
+
+        for (int i = 0; i < count; i++) {
+            if (mHandlers.get(i).mHandler == handler) {
+                throw new IllegalStateException("The handler has already been added");
+            }
+        }
+
+        int index = count;
+        for (int i = 0; i < count; i++) {
+            if (priority < mHandlers.get(i).mPriority) {
+                index = i;
+                break;
+            }
+        }
+
+        mHandlers.add(index, new HandlerEntry(handler, priority));
+    }
+
+    private void removeHandler(GestureHandler handler) {
+        for (int i = mHandlers.size() - 1; i >= 0; i--) {
+            if (mHandlers.get(i).mHandler == handler) {
+                mHandlers.remove(i);
+            }
+        }
+
+        if (mActiveHandler == handler) {
+            mActiveHandler = null;
+        }
+    }
+
+    /*package*/ boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        final TouchEventInfo info = mTouchEventInfo;
+
+        info.set(rv, e, mTouchSlop);
+
+        if (info.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            mActiveHandler = null;
+        }
+
+        boolean intercepted = false;
+
+        // NOTE: the size is re-evaluated because a handler may unregister itself while handling the event
+        for (int i = 0; i < mHandlers.size(); i++) {
+            final GestureHandler handler = mHandlers.get(i).mHandler;
+
+            if (handler.onInterceptTouchEvent(rv, e, info)) {
+                mActiveHandler = handler;
+                intercepted = true;
+                break;
+            }
+        }
+
+        info.clear();
+
+        if (intercepted) {
+            notifyGestureIntercepted(rv, mActiveHandler);
+        }
+
+        return intercepted;
+    }
+
+    private void notifyGestureIntercepted(RecyclerView rv, GestureHandler activeHandler) {
+        // NOTE: iterate in reverse order because a handler may unregister itself while handling the notification
+        for (int i = mHandlers.size() - 1; i >= 0; i--) {
+            if (i >= mHandlers.size()) {
+                continue;
+            }
+
+            final GestureHandler handler = mHandlers.get(i).mHandler;
+
+            if (handler != activeHandler) {
+                handler.onGestureInterceptedByOtherHandler(rv);
+            }
+        }
+    }
+
+    /*package*/ void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        final GestureHandler handler = mActiveHandler;
+        final TouchEventInfo info = mTouchEventInfo;
+
+        info.set(rv, e, mTouchSlop);
+
+        if (handler != null) {
+            handler.onTouchEvent(rv, e, info);
+        }
+
+        info.clear();
+
+        final int action = info.getActionMasked();
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            mActiveHandler = null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.utils;
+
+import android.view.MotionEvent;
+
+/**
+ * Extrapolates the touch position from the recent touch samples (including the historical ones
+ * batched into a MotionEvent) to reduce the perceived latency of the dragging/swiping item.
+ */
+public class TouchPositionPredictor {
+    public static final long MAX_PREDICTION_HORIZON = 50; // [ms]
+
+    private static final int MAX_SAMPLES = 8;
+    private static final long SAMPLE_WINDOW = 50; // [ms]
+    private static final long MIN_VELOCITY_TIME_SPAN = 4; // [ms]
+
+    private final long[] mTime = new long[MAX_SAMPLES];
+    private final float[] mX = new float[MAX_SAMPLES];
+    private final float[] mY = new float[MAX_SAMPLES];
+    private int mHead; // index of the latest sample
+    private int mCount;
+
+    private long mHorizon;
+    private float mMaxDistance = Float.MAX_VALUE;
+
+    private int mPredictedX;
+    private int mPredictedY;
+
+    /**
+     * Sets how far ahead the position is predicted.
+     *
+     * @param horizon Prediction horizon in milliseconds. (0: prediction is disabled, clamped to {@link #MAX_PREDICTION_HORIZON})
+     */
+    public void setHorizon(long horizon) {
+        if (horizon < 0) {
+            throw new IllegalArgumentException("horizon must be >= 0");
+        }
+        mHorizon = Math.min(horizon, MAX_PREDICTION_HORIZON);
+    }
+
+    public long getHorizon() {
+        return mHorizon;
+    }
+
+    public boolean isEnabled() {
+        return (mHorizon > 0);
+    }
+
+    /**
+     * Sets the upper limit of the distance between the latest actual position and the predicted one.
+     *
+     * @param maxDistance Max distance in pixels
+     */
+    public void setMaxDistance(float maxDistance) {
+        if (maxDistance < 0.0f) {
+            throw new IllegalArgumentException("maxDistance must be >= 0");
+        }
+        mMaxDistance = maxDistance;
+    }
+
+    public float getMaxDistance() {
+        return mMaxDistance;
+    }
+
+    public void reset() {
+        mHead = 0;
+        mCount = 0;
+        mPredictedX = 0;
+        mPredictedY = 0;
+    }
+
+    public void addMovement(MotionEvent e) {
+        final int historySize = e.getHistorySize();
+
+        for (int i = 0; i < historySize; i++) {
+            addSample(e.getHistoricalEventTime(i), e.getHistoricalX(i), e.getHistoricalY(i));
+        }
+
+        addSample(e.getEventTime(), e.getX(), e.getY());
+    }
+
+    private void addSample(long time, float x, float y) {
+        if (mCount > 0 && time < mTime[mHead]) {
+            // out of order
+            return;
+        }
+
+        mHead = (mHead + 1) % MAX_SAMPLES;
+        mTime[mHead] = time;
+        mX[mHead] = x;
+        mY[mHead] = y;
+        mCount = Math.min(mCount + 1, MAX_SAMPLES);
+    }
+
+    /**
+     * Calculates the predicted position. Retrieve the result with {@link #getPredictedX()} and {@link #getPredictedY()}.
+     *
+     * @return Whether the position is extrapolated. If false, the predicted position is the latest actual one.
+     */
+    public boolean predict() {
+        if (mCount == 0) {
+            mPredictedX = 0;
+            mPredictedY = 0;
+            return false;
+        }
+
+        final long latestTime = mTime[mHead];
+        final float latestX = mX[mHead];
+        final float latestY = mY[mHead];
+
+        mPredictedX = (int) (latestX + 0.5f);
+        mPredictedY = (int) (latestY + 0.5f);
+
+        if (mHorizon <= 0 || mCount < 2) {
+            return false;
+        }
+
+        // find the oldest sample in the window
+        int oldest = mHead;
+        for (int i = 1; i < mCount; i++) {
+            final int index = (mHead - i + MAX_SAMPLES) % MAX_SAMPLES;
+
+            if ((latestTime - mTime[index]) > SAMPLE_WINDOW) {
+                break;
+            }
+            oldest = index;
+        }
+
+        final long timeSpan = latestTime - mTime[oldest];
+
+        if (timeSpan < MIN_VELOCITY_TIME_SPAN) {
+            return false;
+        }
+
+        final float travelX = latestX - mX[oldest];
+        final float travelY = latestY - mY[oldest];
+        final float scale = (float) mHorizon / timeSpan;
+        float dx = travelX * scale;
+        float dy = travelY * scale;
+
+        // NOTE: don't extrapolate further than the distance actually travelled in the window, it overshoots on sudden stops
+        final float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        final float limit = Math.min(mMaxDistance, (float) Math.sqrt(travelX * travelX + travelY * travelY));
+
+        if (distance > limit) {
+            final float ratio = (distance > 0.0f) ? (limit / distance) : 0.0f;
+            dx *= ratio;
+            dy *= ratio;
+        }
+
+        mPredictedX = (int) (latestX + dx + 0.5f);
+        mPredictedY = (int) (latestY + dy + 0.5f);
+
+        return true;
+    }
+
+    public int getPredictedX() {
+        return mPredictedX;
+    }
+
+    public int getPredictedY() {
+        return mPredictedY;
+    }
+}
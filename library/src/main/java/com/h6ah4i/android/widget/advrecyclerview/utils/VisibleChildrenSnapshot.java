@@ -0,0 +1,378 @@
+/*
+ *    Copyright (C) 2015 Haruki Hasegawa
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.h6ah4i.android.widget.advrecyclerview.utils;
+
+import android.graphics.Rect;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Snapshot of the visible child views of a RecyclerView, held in primitive arrays.
+ *
+ * The properties are read once per frame by {@link #capture(RecyclerView)}, then the consumers
+ * (e.g. the layers of {@link com.h6ah4i.android.widget.advrecyclerview.decoration.CompositeItemDecoration},
+ * the drag & drop manager and its swap target operator) refer to the arrays instead of querying
+ * each child view again. The owner calls {@link #invalidate()} when the children may have been
+ * changed, and the consumers call {@link #ensureCaptured(RecyclerView)} before using it.
+ */
+public class VisibleChildrenSnapshot {
+    private int mCount;
+    private boolean mValid;
+    private int mGeneration;
+    private View[] mChildren = new View[0];
+    private RecyclerView.ViewHolder[] mViewHolders = new RecyclerView.ViewHolder[0];
+    private int[] mPosition = new int[0];
+    private long[] mItemId = new long[0];
+    private int[] mLeft = new int[0];
+    private int[] mTop = new int[0];
+    private int[] mRight = new int[0];
+    private int[] mBottom = new int[0];
+    private float[] mTranslationX = new float[0];
+    private float[] mTranslationY = new float[0];
+    private float[] mZ = new float[0];
+    private float[] mAlpha = new float[0];
+    private int[] mVisibility = new int[0];
+    private int[] mMarginLeft = new int[0];
+    private int[] mMarginTop = new int[0];
+    private int[] mMarginRight = new int[0];
+    private int[] mMarginBottom = new int[0];
+    private int[] mDecorationLeft = new int[0];
+    private int[] mDecorationTop = new int[0];
+    private int[] mDecorationRight = new int[0];
+    private int[] mDecorationBottom = new int[0];
+
+    /**
+     * Reads the properties of the current child views.
+     *
+     * @param rv The RecyclerView
+     */
+    public void capture(RecyclerView rv) {
+        final int childCount = rv.getChildCount();
+        final RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+
+        ensureCapacity(childCount);
+
+        for (int i = 0; i < childCount; i++) {
+            final View child = rv.getChildAt(i);
+            final RecyclerView.ViewHolder holder = rv.getChildViewHolder(child);
+            final ViewGroup.LayoutParams lp = child.getLayoutParams();
+
+            mChildren[i] = child;
+            mViewHolders[i] = holder;
+            mPosition[i] = (holder != null) ? holder.getPosition() : RecyclerView.NO_POSITION;
+            mItemId[i] = (holder != null) ? holder.getItemId() : RecyclerView.NO_ID;
+            mLeft[i] = child.getLeft();
+            mTop[i] = child.getTop();
+            mRight[i] = child.getRight();
+            mBottom[i] = child.getBottom();
+            mTranslationX[i] = ViewCompat.getTranslationX(child);
+            mTranslationY[i] = ViewCompat.getTranslationY(child);
+            mZ[i] = ViewCompat.getTranslationZ(child) + ViewCompat.getElevation(child);
+            mAlpha[i] = ViewCompat.getAlpha(child);
+            mVisibility[i] = child.getVisibility();
+
+            if (lp instanceof ViewGroup.MarginLayoutParams) {
+                final ViewGroup.MarginLayoutParams mlp = (ViewGroup.MarginLayoutParams) lp;
+                mMarginLeft[i] = mlp.leftMargin;
+                mMarginTop[i] = mlp.topMargin;
+                mMarginRight[i] = mlp.rightMargin;
+                mMarginBottom[i] = mlp.bottomMargin;
+            } else {
+                mMarginLeft[i] = mMarginTop[i] = mMarginRight[i] = mMarginBottom[i] = 0;
+            }
+
+            if (layoutManager != null) {
+                mDecorationLeft[i] = layoutManager.getLeftDecorationWidth(child);
+                mDecorationTop[i] = layoutManager.getTopDecorationHeight(child);
+                mDecorationRight[i] = layoutManager.getRightDecorationWidth(child);
+                mDecorationBottom[i] = layoutManager.getBottomDecorationHeight(child);
+            } else {
+                mDecorationLeft[i] = mDecorationTop[i] = mDecorationRight[i] = mDecorationBottom[i] = 0;
+            }
+        }
+
+        // release the references to the views which are no longer children
+        for (int i = childCount; i < mCount; i++) {
+            mChildren[i] = null;
+            mViewHolders[i] = null;
+        }
+
+        mCount = childCount;
+        mValid = true;
+        mGeneration += 1;
+    }
+
+    /**
+     * Captures the child views only if this snapshot has been invalidated since the last capture.
+     *
+     * @param rv The RecyclerView
+     */
+    public void ensureCaptured(RecyclerView rv) {
+        if (!mValid) {
+            capture(rv);
+        }
+    }
+
+    /**
+     * Marks this snapshot as outdated (e.g. the children have been scrolled or laid out).
+     */
+    public void invalidate() {
+        mValid = false;
+    }
+
+    public boolean isValid() {
+        return mValid;
+    }
+
+    /**
+     * Gets the generation of this snapshot. It is incremented on every capture, so the consumers
+     * can tell whether the data derived from the snapshot is still up to date.
+     *
+     * @return The generation
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Checks whether the child views have been changed (added, removed, moved or faded) since the last capture.
+     *
+     * @param rv The RecyclerView
+     * @return True if any of the captured properties differs from the current one
+     */
+    public boolean isChanged(RecyclerView rv) {
+        final int childCount = rv.getChildCount();
+
+        if (childCount != mCount) {
+            return true;
+        }
+
+        for (int i = 0; i < childCount; i++) {
+            final View child = rv.getChildAt(i);
+
+            if ((child != mChildren[i]) ||
+                    (child.getLeft() != mLeft[i]) ||
+                    (child.getTop() != mTop[i]) ||
+                    (child.getRight() != mRight[i]) ||
+                    (child.getBottom() != mBottom[i]) ||
+                    (ViewCompat.getTranslationX(child) != mTranslationX[i]) ||
+                    (ViewCompat.getTranslationY(child) != mTranslationY[i]) ||
+                    (ViewCompat.getAlpha(child) != mAlpha[i]) ||
+                    (child.getVisibility() != mVisibility[i])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void clear() {
+        for (int i = 0; i < mCount; i++) {
+            mChildren[i] = null;
+            mViewHolders[i] = null;
+        }
+        mCount = 0;
+        mValid = false;
+        mGeneration += 1;
+    }
+
+    /**
+     * Finds the child which is bound to the specified adapter position.
+     *
+     * @param position The adapter position
+     * @return Index of the child, or -1 if not found
+     */
+    public int indexOfPosition(int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return -1;
+        }
+
+        final int[] positions = mPosition;
+        final int n = mCount;
+
+        for (int i = 0; i < n; i++) {
+            if (positions[i] == position) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the child view which contains the specified point. Translation of the views is not applied.
+     *
+     * @return Index of the child, or -1 if not found. If multiple children contain the point,
+     * the top-most (largest index) one is returned.
+     */
+    public int findChildIndexUnder(int x, int y) {
+        for (int i = mCount - 1; i >= 0; i--) {
+            if (x >= mLeft[i] && x <= mRight[i] && y >= mTop[i] && y <= mBottom[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the child which spans the specified position along the layout axis.
+     *
+     * NOTE: The children have to be sorted by their start (top or left) position.
+     *
+     * @param pos        The position along the layout axis
+     * @param horizontal Whether the layout axis is horizontal
+     * @return Index of the child, or -1 if not found
+     */
+    public int findChildIndexByStartPosition(int pos, boolean horizontal) {
+        final int[] starts = (horizontal) ? mLeft : mTop;
+        final int[] ends = (horizontal) ? mRight : mBottom;
+        int lo = 0;
+        int hi = mCount - 1;
+        int found = -1;
+
+        // find the last child whose start is placed before the specified position
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+
+            if (starts[mid] <= pos) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        if (found < 0) {
+            return -1;
+        }
+
+        return (pos <= ends[found]) ? found : -1;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public View getChildAt(int index) {
+        return mChildren[index];
+    }
+
+    public RecyclerView.ViewHolder getViewHolder(int index) {
+        return mViewHolders[index];
+    }
+
+    public int getPosition(int index) {
+        return mPosition[index];
+    }
+
+    public long getItemId(int index) {
+        return mItemId[index];
+    }
+
+    public int getLeft(int index) {
+        return mLeft[index];
+    }
+
+    public int getTop(int index) {
+        return mTop[index];
+    }
+
+    public int getRight(int index) {
+        return mRight[index];
+    }
+
+    public int getBottom(int index) {
+        return mBottom[index];
+    }
+
+    public float getTranslationX(int index) {
+        return mTranslationX[index];
+    }
+
+    public float getTranslationY(int index) {
+        return mTranslationY[index];
+    }
+
+    /**
+     * Gets the Z position (translationZ + elevation) of the child view.
+     */
+    public float getZ(int index) {
+        return mZ[index];
+    }
+
+    public float getAlpha(int index) {
+        return mAlpha[index];
+    }
+
+    public int getVisibility(int index) {
+        return mVisibility[index];
+    }
+
+    public int getWidth(int index) {
+        return mRight[index] - mLeft[index];
+    }
+
+    public int getHeight(int index) {
+        return mBottom[index] - mTop[index];
+    }
+
+    public Rect getMargins(int index, Rect outMargins) {
+        outMargins.set(mMarginLeft[index], mMarginTop[index], mMarginRight[index], mMarginBottom[index]);
+        return outMargins;
+    }
+
+    public Rect getDecorationOffsets(int index, Rect outOffsets) {
+        outOffsets.set(mDecorationLeft[index], mDecorationTop[index], mDecorationRight[index], mDecorationBottom[index]);
+        return outOffsets;
+    }
+
+    private void ensureCapacity(int n) {
+        if (mChildren.length >= n) {
+            return;
+        }
+
+        // NOTE: the references are copied to release the stale ones in capture()
+        final View[] children = new View[n];
+        final RecyclerView.ViewHolder[] holders = new RecyclerView.ViewHolder[n];
+        System.arraycopy(mChildren, 0, children, 0, mCount);
+        System.arraycopy(mViewHolders, 0, holders, 0, mCount);
+
+        mChildren = children;
+        mViewHolders = holders;
+        mPosition = new int[n];
+        mItemId = new long[n];
+        mLeft = new int[n];
+        mTop = new int[n];
+        mRight = new int[n];
+        mBottom = new int[n];
+        mTranslationX = new float[n];
+        mTranslationY = new float[n];
+        mZ = new float[n];
+        mAlpha = new float[n];
+        mVisibility = new int[n];
+        mMarginLeft = new int[n];
+        mMarginTop = new int[n];
+        mMarginRight = new int[n];
+        mMarginBottom = new int[n];
+        mDecorationLeft = new int[n];
+        mDecorationTop = new int[n];
+        mDecorationRight = new int[n];
+        mDecorationBottom = new int[n];
+    }
+}